@@ -0,0 +1,97 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.controller.archive.ZipBundleWriter;
+import fr.cnam.initializr.facade.provider.mapper.TonicMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Traitement des archives générées, de quelques Ko à plusieurs dizaines de Mo : transmission au client
+ * d'une archive en mémoire ou en streaming, et fusion de deux archives avec et sans recompression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    @Param({"16384", "1048576", "33554432"})
+    private int archiveSize;
+
+    private TonicMapper mapper;
+    private byte[] component;
+    private byte[] contract;
+
+    @Setup
+    public void setUp() {
+        mapper = new TonicMapper();
+        component = BenchmarkData.archive(archiveSize);
+        contract = BenchmarkData.archive(Math.max(16384, archiveSize / 8));
+    }
+
+    @Benchmark
+    public long transferInMemoryArchive() throws IOException {
+        Instance instance = mapper.toBusinessArchive(component);
+        try (InputStream content = instance.getContent().getInputStream()) {
+            return content.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long transferStreamingArchive() throws IOException {
+        Instance instance = mapper.toStreamingArchive(new ByteArrayInputStream(component), component.length);
+        try (InputStream content = instance.getContent().getInputStream()) {
+            return content.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void mergeWithoutRecompression() throws IOException {
+        ZipBundleWriter bundle = new ZipBundleWriter(OutputStream.nullOutputStream());
+        bundle.addArchive("component", component);
+        bundle.addArchive("contract", contract);
+        bundle.finish();
+    }
+
+    /**
+     * Référence : fusion par décompression puis recompression de chaque entrée, telle qu'un client la ferait.
+     */
+    @Benchmark
+    public void mergeWithRecompression() throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(OutputStream.nullOutputStream())) {
+            recompress("component/", component, zip);
+            recompress("contract/", contract, zip);
+        }
+    }
+
+    private static void recompress(String prefix, byte[] archive, ZipOutputStream zip) throws IOException {
+        try (ZipInputStream entries = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = entries.getNextEntry(); entry != null; entry = entries.getNextEntry()) {
+                zip.putNextEntry(new ZipEntry(prefix + entry.getName()));
+                entries.transferTo(zip);
+                zip.closeEntry();
+            }
+        }
+    }
+}
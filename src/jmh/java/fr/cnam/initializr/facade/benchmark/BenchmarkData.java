@@ -0,0 +1,79 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Jeux de données représentatifs des métadonnées et des archives TONIC.
+ */
+final class BenchmarkData {
+    static final String CONTRACTS_CATEGORY = "Contracts";
+    static final int FEATURES_PER_CATEGORY = 25;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Construit des métadonnées TONIC comptant {@code featureCount} features, réparties par catégories
+     * comme dans TONIC, plus la catégorie des contrats.
+     */
+    static Map<String, List<String>> featuresByCategory(int featureCount) {
+        Map<String, List<String>> featuresByCategory = new LinkedHashMap<>();
+        for (int i = 0; i < featureCount; i++) {
+            featuresByCategory
+                    .computeIfAbsent("Category " + i / FEATURES_PER_CATEGORY, category -> new ArrayList<>())
+                    .add(feature(i));
+        }
+        featuresByCategory.put(CONTRACTS_CATEGORY, List.of("toni-contract-openapi", "toni-contract-avro"));
+        return featuresByCategory;
+    }
+
+    static String feature(int index) {
+        return "toni-starter-feature-" + index;
+    }
+
+    /**
+     * Construit une archive ZIP d'environ {@code size} octets, à l'image d'un projet généré :
+     * des sources compressibles et quelques ressources binaires qui ne le sont pas.
+     */
+    static byte[] archive(int size) {
+        Random random = new Random(size);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream(size + 1024);
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("demo/"));
+            zip.closeEntry();
+            for (int i = 0; archive.size() < size; i++) {
+                if (i % 4 == 3) {
+                    zip.putNextEntry(new ZipEntry("demo/src/main/resources/static/asset-" + i + ".bin"));
+                    byte[] binary = new byte[Math.min(64 * 1024, Math.max(1024, size / 16))];
+                    random.nextBytes(binary);
+                    zip.write(binary);
+                } else {
+                    zip.putNextEntry(new ZipEntry("demo/src/main/java/fr/cnam/demo/Class" + i + ".java"));
+                    zip.write(source(i, random).getBytes());
+                }
+                zip.closeEntry();
+                zip.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return archive.toByteArray();
+    }
+
+    private static String source(int index, Random random) {
+        StringBuilder source = new StringBuilder("package fr.cnam.demo;\n\npublic class Class").append(index).append(" {\n");
+        for (int i = 0; i < 200; i++) {
+            source.append("    private String field").append(i).append(" = \"").append(random.nextInt()).append("\";\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
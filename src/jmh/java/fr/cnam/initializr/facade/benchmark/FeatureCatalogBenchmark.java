@@ -0,0 +1,69 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import fr.cnam.initializr.facade.provider.service.TonicMetadataSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accès au catalogue des features et des contrats.
+ * <p>
+ * {@code TonicFeaturesService.getAvailableContracts} se résume à la lecture du catalogue de l'instantané courant :
+ * c'est ce qui est mesuré ici, sans le rafraîchissement en arrière-plan du {@code TonicCachingService}.
+ * La construction du catalogue, payée une fois par chargement des métadonnées, est mesurée à part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureCatalogBenchmark {
+
+    @Param({"100", "500"})
+    private int catalogSize;
+
+    private Map<String, List<String>> featuresByCategory;
+    private TonicMetadataSnapshot snapshot;
+    private String lastFeature;
+
+    @Setup
+    public void setUp() {
+        featuresByCategory = BenchmarkData.featuresByCategory(catalogSize);
+        snapshot = new TonicMetadataSnapshot(featuresByCategory, System.currentTimeMillis());
+        lastFeature = BenchmarkData.feature(catalogSize - 1);
+    }
+
+    @Benchmark
+    public List<String> getAvailableContracts() {
+        return snapshot.getCatalog().getContracts();
+    }
+
+    @Benchmark
+    public List<String> getAvailableFeatures() {
+        return snapshot.getCatalog().getComponentFeatures();
+    }
+
+    @Benchmark
+    public boolean hasComponentFeature() {
+        return snapshot.getCatalog().hasComponentFeature(lastFeature);
+    }
+
+    @Benchmark
+    public FeatureCatalog buildCatalog() {
+        return new TonicMetadataSnapshot(featuresByCategory, System.currentTimeMillis()).getCatalog();
+    }
+}
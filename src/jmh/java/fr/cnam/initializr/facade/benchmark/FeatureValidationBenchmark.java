@@ -0,0 +1,108 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.initializr.facade.business.port.TonicProvider;
+import fr.cnam.initializr.facade.business.service.ComponentService;
+import fr.cnam.initializr.facade.business.service.StarterKitProviderRegistry;
+import fr.cnam.initializr.facade.provider.service.TonicMetadataSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation des features demandées pour un composant, sur un catalogue de taille réaliste.
+ * Les features demandées sont prises en fin de catalogue, cas le plus défavorable d'une recherche linéaire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureValidationBenchmark {
+
+    @Param({"100", "500"})
+    private int catalogSize;
+
+    @Param({"5", "20"})
+    private int requestedFeatures;
+
+    private ComponentService componentService;
+    private FeatureCatalog catalog;
+    private Component component;
+
+    @Setup
+    public void setUp() {
+        catalog = new TonicMetadataSnapshot(BenchmarkData.featuresByCategory(catalogSize), System.currentTimeMillis())
+                .getCatalog();
+        // La validation n'utilise que la liste des starter kits disponibles, ni les métriques
+        componentService = new ComponentService(null, new StarterKitProviderRegistry(List.of(new CatalogProvider(catalog))), null);
+
+        List<String> features = new ArrayList<>();
+        for (int i = 0; i < requestedFeatures; i++) {
+            features.add(BenchmarkData.feature(catalogSize - 1 - i));
+        }
+        component = new Component(StarterKit.TONIC, "MyProduct", "MY-COMPONENT_J", features);
+    }
+
+    @Benchmark
+    public void validateComponent(Blackhole blackhole) {
+        componentService.validateComponent(component, catalog);
+        blackhole.consume(component);
+    }
+
+    /**
+     * Fournisseur TONIC se limitant au catalogue.
+     */
+    private record CatalogProvider(FeatureCatalog catalog) implements TonicProvider {
+        @Override
+        public Instance generateComponent(Component request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getComponentFeatures() {
+            return catalog.getComponentFeatures();
+        }
+
+        @Override
+        public Instance generateContract(Contract request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getAvailableContracts() {
+            return catalog.getContracts();
+        }
+
+        @Override
+        public FeatureCatalog getCatalog() {
+            return catalog;
+        }
+
+        @Override
+        public void loadMetadata() {
+        }
+
+        @Override
+        public void refreshMetadataIfDue() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.Metric;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.initializr.facade.business.service.MetricService;
+import fr.cnam.initializr.facade.business.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction des métriques de génération ({@code MetricService.createModuleMetric} et son enrichissement),
+ * avec un {@code MetricProvider} qui se contente de consommer la métrique.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricServiceBenchmark {
+
+    private MetricService metricService;
+    private Component component;
+    private Contract contract;
+    private volatile Metric lastMetric;
+
+    @Setup
+    public void setUp() {
+        // Statistiques désactivées hors contexte Spring : seule la construction de la métrique est mesurée
+        metricService = new MetricService(metric -> lastMetric = metric, new StatisticsService(null, null));
+        component = new Component(StarterKit.TONIC, "MyProduct", "MY-COMPONENT_J",
+                List.of(BenchmarkData.feature(1), BenchmarkData.feature(2), BenchmarkData.feature(3)));
+        contract = new Contract(StarterKit.TONIC, "OPENAPI", "MyProduct", "MY-API_J");
+    }
+
+    @Benchmark
+    public Metric recordComponentGeneration() {
+        metricService.recordComponentGeneration(component);
+        return lastMetric;
+    }
+
+    @Benchmark
+    public Metric recordContractGeneration() {
+        metricService.recordContractGeneration(contract);
+        return lastMetric;
+    }
+}
@@ -0,0 +1,61 @@
+package fr.cnam.initializr.facade.benchmark;
+
+import fr.cnam.client.tonic.controller.rest.model.ProjectRequest;
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.initializr.facade.provider.mapper.TonicMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion d'un composant en requête TONIC, et calcul de sa forme canonique utilisée comme clé de cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TonicMapperBenchmark {
+
+    @Param({"0", "5", "20"})
+    private int requestedFeatures;
+
+    private TonicMapper mapper;
+    private Component component;
+    private ProjectRequest projectRequest;
+
+    @Setup
+    public void setUp() {
+        mapper = new TonicMapper();
+        List<String> features = new ArrayList<>();
+        for (int i = requestedFeatures - 1; i >= 0; i--) {
+            features.add(BenchmarkData.feature(i));
+        }
+        component = new Component(StarterKit.TONIC, "MyProduct", "MY-COMPONENT_J", features);
+        projectRequest = mapper.toClientRequest(component);
+    }
+
+    @Benchmark
+    public ProjectRequest toClientRequest() {
+        return mapper.toClientRequest(component);
+    }
+
+    @Benchmark
+    public String toCanonicalForm() {
+        return mapper.toCanonicalForm(projectRequest);
+    }
+}
@@ -0,0 +1,47 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution des latences simulées par les services amont factices.
+ * <p>
+ * Formats acceptés :
+ * <ul>
+ *     <li>{@code fixed:<ms>} : latence constante ;</li>
+ *     <li>{@code uniform:<min ms>:<max ms>} : latence uniforme entre deux bornes ;</li>
+ *     <li>{@code lognormal:<médiane ms>:<p99 ms>} : latence log-normale, forme habituelle des temps de réponse réels.</li>
+ * </ul>
+ */
+public interface LatencyDistribution {
+    /**
+     * Quantile de la loi normale centrée réduite à 99 %.
+     */
+    double Z_99 = 2.326;
+
+    long sampleMillis();
+
+    static LatencyDistribution parse(String specification) {
+        String[] parts = specification.trim().split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> {
+                    long millis = Long.parseLong(parts[1]);
+                    yield () -> millis;
+                }
+                case "uniform" -> {
+                    long min = Long.parseLong(parts[1]);
+                    long max = Long.parseLong(parts[2]);
+                    yield () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+                }
+                case "lognormal" -> {
+                    double mu = Math.log(Double.parseDouble(parts[1]));
+                    double sigma = (Math.log(Double.parseDouble(parts[2])) - mu) / Z_99;
+                    yield () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+                }
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + specification);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + specification, e);
+        }
+    }
+}
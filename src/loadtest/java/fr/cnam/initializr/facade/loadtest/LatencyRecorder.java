@@ -0,0 +1,65 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Enregistre les latences d'un type de trafic. Chaque client dispose de son propre enregistreur,
+ * fusionné avec les autres en fin de campagne : l'enregistrement ne crée aucune contention entre clients.
+ */
+class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void recordSuccess(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    Summary summarize(double durationSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(count,
+                errors,
+                count / durationSeconds,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.90),
+                percentile(sorted, 0.99),
+                percentile(sorted, 0.999),
+                sorted.length == 0 ? 0 : toMillis(sorted[sorted.length - 1]));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Synthèse d'un type de trafic ; les latences sont en millisecondes.
+     */
+    record Summary(long successes, long errors, double throughput,
+                   double p50, double p90, double p99, double p999, double max) {
+    }
+}
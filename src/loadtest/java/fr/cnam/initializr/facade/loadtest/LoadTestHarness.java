@@ -0,0 +1,240 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import fr.cnam.initializr.facade.Application;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Campagne de charge reproductible de la facade.
+ * <p>
+ * Démarre TONIC et le service de métriques factices, puis la facade elle-même sur un port libre, et la sollicite
+ * avec le mélange de trafic configuré. Chaque type de trafic fait l'objet d'un relevé de débit et de percentiles
+ * de latence, affiché et écrit en JSON dans le répertoire des rapports pour comparaison entre versions.
+ * <p>
+ * Avec un débit cible ({@code loadtest.rate}), la latence est mesurée depuis l'instant où la requête aurait dû partir :
+ * un ralentissement de la facade n'est donc pas masqué par le ralentissement des clients qui l'attendent.
+ */
+public final class LoadTestHarness {
+    private static final String PRODUCT_NAME = "loadtest";
+
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final Operation[] weightedOperations;
+    private List<String> features;
+    private String facadeUrl;
+
+    private LoadTestHarness(LoadTestSettings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        this.weightedOperations = settings.mix().entrySet().stream()
+                .flatMap(weight -> Stream.generate(weight::getKey).limit(weight.getValue()))
+                .toArray(Operation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        new LoadTestHarness(settings).run(args);
+    }
+
+    private void run(String[] args) throws Exception {
+        try (StubTonicServer tonic = new StubTonicServer(LatencyDistribution.parse(settings.tonicLatency()),
+                settings.featureCount(), settings.archiveSize());
+             StubMetricServer metricService = new StubMetricServer(LatencyDistribution.parse(settings.metricLatency()))) {
+            tonic.start();
+            metricService.start();
+            features = tonic.getFeatures();
+
+            try (ConfigurableApplicationContext facade = startFacade(tonic.getUrl(), metricService.getUrl(), args)) {
+                facadeUrl = "http://localhost:" + facade.getEnvironment().getProperty("local.server.port");
+                System.out.printf("Facade started on %s, warming up for %s%n", facadeUrl, settings.warmup());
+
+                drive(settings.warmup());
+                System.out.printf("Measuring for %s with %d clients%n", settings.duration(), settings.concurrency());
+                Map<Operation, LatencyRecorder> results = drive(settings.duration());
+
+                Map<Operation, LatencyRecorder.Summary> summaries = new EnumMap<>(Operation.class);
+                double seconds = settings.duration().toMillis() / 1000.0;
+                results.forEach((operation, recorder) -> summaries.put(operation, recorder.summarize(seconds)));
+                report(summaries, tonic.getRequestCount(), metricService.getRequestCount());
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startFacade(String tonicUrl, String metricUrl, String[] args) {
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setDefaultProperties(Map.of(
+                "server.port", "0",
+                "initializer.tonic.url", tonicUrl,
+                "initializer.metric.url", metricUrl,
+                "initializer.metric.mock", "false",
+                "cache.tonic-features.snapshot-file", "",
+                "spring.main.banner-mode", "off",
+                "logging.level.root", "WARN"));
+        // Les arguments permettent de comparer des configurations, par exemple --spring.threads.virtual.enabled=true.
+        // Toute la charge émanant d'un même produit, sa limite de débit est levée sauf si elle est configurée
+        if (Stream.of(args).noneMatch(arg -> arg.startsWith("--initializer.rate-limit."))) {
+            args = Stream.concat(Stream.of(args), Stream.of("--initializer.rate-limit.enabled=false")).toArray(String[]::new);
+        }
+        return application.run(args);
+    }
+
+    private Map<Operation, LatencyRecorder> drive(Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        List<Future<Map<Operation, LatencyRecorder>>> workers = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            workers.add(clients.submit(() -> runClient(start, end, sequence)));
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+
+        Map<Operation, LatencyRecorder> merged = new EnumMap<>(Operation.class);
+        for (Future<Map<Operation, LatencyRecorder>> worker : workers) {
+            try {
+                worker.get().forEach((operation, recorder) ->
+                        merged.computeIfAbsent(operation, o -> new LatencyRecorder()).merge(recorder));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load test client failed", e.getCause());
+            }
+        }
+        return merged;
+    }
+
+    private Map<Operation, LatencyRecorder> runClient(long start, long end, AtomicLong sequence) {
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        while (true) {
+            long requestNumber = sequence.getAndIncrement();
+            long intendedStart = settings.rate() > 0
+                    ? start + (long) (requestNumber * 1_000_000_000L / settings.rate())
+                    : System.nanoTime();
+            if (intendedStart >= end) {
+                return recorders;
+            }
+            waitUntil(intendedStart);
+
+            Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+            LatencyRecorder recorder = recorders.computeIfAbsent(operation, o -> new LatencyRecorder());
+            try {
+                int status = send(operation, requestNumber);
+                if (status == 200) {
+                    recorder.recordSuccess(System.nanoTime() - intendedStart);
+                } else {
+                    recorder.recordError();
+                }
+            } catch (IOException e) {
+                recorder.recordError();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return recorders;
+            }
+        }
+    }
+
+    private int send(Operation operation, long requestNumber) throws IOException, InterruptedException {
+        String codeApplicatif = "LOAD-" + requestNumber % settings.distinctProjects() + "_J";
+        String path = switch (operation) {
+            case LISTING -> "/components/TONIC/features?product-name=" + PRODUCT_NAME;
+            case COMPONENT -> "/components/TONIC?product-name=" + PRODUCT_NAME + "&code-applicatif=" + codeApplicatif
+                    + featureParameters();
+            case CONTRACT -> "/contracts/TONIC/OPENAPI?product-name=" + PRODUCT_NAME + "&code-applicatif=" + codeApplicatif;
+        };
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(facadeUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        return response.statusCode();
+    }
+
+    private String featureParameters() {
+        StringBuilder parameters = new StringBuilder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < settings.featuresPerRequest() && !features.isEmpty(); i++) {
+            parameters.append("&features=").append(features.get(random.nextInt(features.size())));
+        }
+        return parameters.toString();
+    }
+
+    private static void waitUntil(long nanoTime) {
+        for (long remaining = nanoTime - System.nanoTime(); remaining > 0; remaining = nanoTime - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void report(Map<Operation, LatencyRecorder.Summary> summaries, long tonicCalls, long metricCalls) throws IOException {
+        System.out.printf("%n%-10s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        summaries.forEach((operation, summary) -> System.out.printf(Locale.ROOT, "%-10s %10d %8d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                operation.getName(), summary.successes(), summary.errors(), summary.throughput(),
+                summary.p50(), summary.p90(), summary.p99(), summary.p999(), summary.max()));
+        System.out.printf("Upstream calls during the whole run: TONIC %d, metric service %d%n", tonicCalls, metricCalls);
+
+        Files.createDirectories(settings.reportDirectory());
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path report = settings.reportDirectory().resolve(settings.label() + "-" + timestamp + ".json");
+        Files.writeString(report, toJson(summaries), StandardCharsets.UTF_8);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private String toJson(Map<Operation, LatencyRecorder.Summary> summaries) {
+        StringBuilder json = new StringBuilder("{\n")
+                .append("  \"label\": \"").append(settings.label()).append("\",\n")
+                .append(String.format(Locale.ROOT,
+                        "  \"settings\": {\"durationSeconds\": %d, \"concurrency\": %d, \"rate\": %.1f, \"mix\": \"%s\", "
+                                + "\"distinctProjects\": %d, \"featureCount\": %d, \"archiveSize\": %d, "
+                                + "\"tonicLatency\": \"%s\", \"metricLatency\": \"%s\"},%n",
+                        settings.duration().toSeconds(), settings.concurrency(), settings.rate(), settings.mix(),
+                        settings.distinctProjects(), settings.featureCount(), settings.archiveSize(),
+                        settings.tonicLatency(), settings.metricLatency()))
+                .append("  \"operations\": {");
+        String separator = "\n";
+        for (Map.Entry<Operation, LatencyRecorder.Summary> entry : summaries.entrySet()) {
+            LatencyRecorder.Summary summary = entry.getValue();
+            json.append(separator).append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"requests\": %d, \"errors\": %d, \"throughput\": %.2f, "
+                            + "\"p50\": %.3f, \"p90\": %.3f, \"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}",
+                    entry.getKey().getName(), summary.successes(), summary.errors(), summary.throughput(),
+                    summary.p50(), summary.p90(), summary.p99(), summary.p999(), summary.max()));
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+}
@@ -0,0 +1,73 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Paramètres d'une campagne de charge, lus dans les propriétés système {@code loadtest.*}.
+ *
+ * @param label             libellé du rapport, par exemple la version testée
+ * @param warmup            durée de chauffe, exclue des mesures
+ * @param duration          durée de la mesure
+ * @param concurrency       nombre de clients simultanés
+ * @param rate              débit cible en requêtes par seconde, ou 0 pour enchaîner les requêtes sans pause
+ * @param mix               poids relatif de chaque type de trafic
+ * @param distinctProjects  nombre de projets distincts générés, qui conditionne le taux de succès du cache d'archives
+ * @param featuresPerRequest nombre de features demandées par génération de composant
+ * @param featureCount      nombre de features publiées par TONIC
+ * @param archiveSize       taille en octets des archives servies par TONIC
+ * @param tonicLatency      latence simulée de TONIC
+ * @param metricLatency     latence simulée du service de métriques
+ * @param reportDirectory   répertoire des rapports
+ */
+record LoadTestSettings(String label,
+                        Duration warmup,
+                        Duration duration,
+                        int concurrency,
+                        double rate,
+                        Map<Operation, Integer> mix,
+                        int distinctProjects,
+                        int featuresPerRequest,
+                        int featureCount,
+                        int archiveSize,
+                        String tonicLatency,
+                        String metricLatency,
+                        Path reportDirectory) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                System.getProperty("loadtest.label", "local"),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 60)),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Double.parseDouble(System.getProperty("loadtest.rate", "0")),
+                parseMix(System.getProperty("loadtest.mix", "listing:50,component:35,contract:15")),
+                Integer.getInteger("loadtest.distinct-projects", 1000),
+                Integer.getInteger("loadtest.features-per-request", 3),
+                Integer.getInteger("loadtest.tonic.features", 300),
+                Integer.getInteger("loadtest.tonic.archive-size", 256 * 1024),
+                System.getProperty("loadtest.tonic.latency", "lognormal:80:600"),
+                System.getProperty("loadtest.metric.latency", "lognormal:10:100"),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+
+    /**
+     * Lit un mélange de trafic de la forme {@code listing:50,component:35,contract:15}.
+     */
+    static Map<Operation, Integer> parseMix(String specification) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String weight : specification.split(",")) {
+            String[] parts = weight.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid traffic mix: " + specification);
+            }
+            mix.put(Operation.fromName(parts[0]), Integer.parseInt(parts[1]));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Traffic mix must have a positive total weight: " + specification);
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,29 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Types de trafic envoyés à la facade.
+ */
+enum Operation {
+    /**
+     * Liste des features disponibles pour TONIC.
+     */
+    LISTING,
+    /**
+     * Génération d'un composant TONIC avec quelques features.
+     */
+    COMPONENT,
+    /**
+     * Génération d'un contrat OpenAPI.
+     */
+    CONTRACT;
+
+    static Operation fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
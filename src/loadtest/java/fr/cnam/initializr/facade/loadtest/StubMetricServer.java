@@ -0,0 +1,28 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Service de métriques factice : accepte les {@code PUT /modules} et renvoie le module reçu.
+ */
+class StubMetricServer extends StubServer {
+    static final String BASE_PATH = "/poc-metrique-instances-stump/public/rest";
+
+    StubMetricServer(LatencyDistribution latency) throws IOException {
+        super(latency);
+        route(BASE_PATH + "/modules", exchange -> {
+            if (!"PUT".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "application/json", new byte[0]);
+                return;
+            }
+            byte[] module = exchange.getRequestBody().readAllBytes();
+            respond(exchange, 200, "application/json", module.length > 0 ? module : "{}".getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    @Override
+    String getUrl() {
+        return super.getUrl() + BASE_PATH;
+    }
+}
@@ -0,0 +1,87 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Socle des services amont factices : un {@link HttpServer} du JDK, sur un port libre, dont chaque réponse
+ * est retardée selon une {@link LatencyDistribution}.
+ */
+abstract class StubServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyDistribution latency;
+    private final LongAdder requestCount = new LongAdder();
+
+    protected StubServer(LatencyDistribution latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+    }
+
+    protected void route(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            try {
+                requestCount.increment();
+                simulateLatency();
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    protected static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void simulateLatency() {
+        long millis = latency.sampleMillis();
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,90 @@
+package fr.cnam.initializr.facade.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * TONIC factice : sert des métadonnées comptant le nombre de features demandé, avec un ETag permettant leur
+ * revalidation, et une archive de taille fixe pour toute demande de génération.
+ */
+class StubTonicServer extends StubServer {
+    static final int FEATURES_PER_CATEGORY = 25;
+
+    private final List<String> features = new ArrayList<>();
+    private final byte[] metadata;
+    private final byte[] archive;
+
+    StubTonicServer(LatencyDistribution latency, int featureCount, int archiveSize) throws IOException {
+        super(latency);
+        for (int i = 0; i < featureCount; i++) {
+            features.add("toni-starter-feature-" + i);
+        }
+        this.metadata = metadata(features).getBytes(StandardCharsets.UTF_8);
+        this.archive = archive(archiveSize);
+
+        String etag = "\"" + Integer.toHexString(Arrays.hashCode(metadata)) + "\"";
+        route("/metadata/config", exchange -> {
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                respond(exchange, 304, "application/json", new byte[0]);
+            } else {
+                respond(exchange, 200, "application/json", metadata);
+            }
+        });
+        route("/starter.zip", exchange -> respond(exchange, 200, "application/zip", archive));
+    }
+
+    List<String> getFeatures() {
+        return features;
+    }
+
+    private static String metadata(List<String> features) {
+        StringBuilder json = new StringBuilder("{\"dependencies\":{\"type\":\"hierarchical-multi-select\",\"content\":[");
+        for (int category = 0; category * FEATURES_PER_CATEGORY < features.size(); category++) {
+            json.append("{\"name\":\"Category ").append(category).append("\",\"content\":[");
+            List<String> content = features.subList(category * FEATURES_PER_CATEGORY,
+                    Math.min(features.size(), (category + 1) * FEATURES_PER_CATEGORY));
+            for (int i = 0; i < content.size(); i++) {
+                json.append(i == 0 ? "" : ",")
+                        .append("{\"id\":\"").append(content.get(i)).append("\",\"name\":\"").append(content.get(i)).append("\"}");
+            }
+            json.append("]},");
+        }
+        return json.append("{\"name\":\"Contracts\",\"content\":[")
+                .append("{\"id\":\"toni-contract-openapi\",\"name\":\"OpenAPI\"},")
+                .append("{\"id\":\"toni-contract-avro\",\"name\":\"AVRO\"}]}]}}")
+                .toString();
+    }
+
+    /**
+     * Construit une archive d'environ {@code size} octets, faite de sources compressibles et de ressources binaires.
+     */
+    private static byte[] archive(int size) throws IOException {
+        Random random = new Random(size);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream(size + 1024);
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; archive.size() < size; i++) {
+                if (i % 4 == 3) {
+                    zip.putNextEntry(new ZipEntry("demo/src/main/resources/asset-" + i + ".bin"));
+                    byte[] binary = new byte[Math.min(64 * 1024, Math.max(1024, size / 16))];
+                    random.nextBytes(binary);
+                    zip.write(binary);
+                } else {
+                    zip.putNextEntry(new ZipEntry("demo/src/main/java/Class" + i + ".java"));
+                    zip.write(("public class Class" + i + " { long value = " + random.nextLong() + "L; }\n")
+                            .repeat(50).getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+                zip.flush();
+            }
+        }
+        return archive.toByteArray();
+    }
+}
@@ -0,0 +1,25 @@
+package fr.cnam.initializr.facade.business.exception;
+
+import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
+import fr.cnam.toni.starter.core.exceptions.ServiceException;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Appel à un service amont (génération, premier chargement des métadonnées, envoi d'une métrique) refusé sans avoir
+ * été tenté afin de protéger la facade ou le service amont.
+ * <p>
+ * La demande peut être renouvelée à l'identique après le délai indiqué : elle est renvoyée au client sous la forme
+ * d'une réponse 503 portant un en-tête {@code Retry-After}. Le type de problème TONI n'est utilisé que si l'exception
+ * n'est pas traduite par la facade.
+ */
+@Getter
+public class GenerationRejectedException extends ServiceException {
+    private final Duration retryAfter;
+
+    public GenerationRejectedException(String message, Duration retryAfter) {
+        super(CommonProblemType.ERREUR_INATTENDUE, new IllegalStateException(message));
+        this.retryAfter = retryAfter;
+    }
+}
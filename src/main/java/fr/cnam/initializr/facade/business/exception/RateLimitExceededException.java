@@ -0,0 +1,31 @@
+package fr.cnam.initializr.facade.business.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Génération refusée parce que le produit demandeur a dépassé son débit autorisé.
+ * <p>
+ * Elle est renvoyée au client sous la forme d'une réponse 429 portant, en plus de l'en-tête {@code Retry-After}, les
+ * en-têtes {@code RateLimit-*}.
+ */
+@Getter
+public class RateLimitExceededException extends GenerationRejectedException {
+    private final int limit;
+    private final Duration window;
+    private final Duration reset;
+
+    /**
+     * @param limit      nombre de générations autorisées en rafale
+     * @param window     durée nécessaire à la reconstitution complète de la rafale
+     * @param retryAfter délai avant qu'une génération soit de nouveau autorisée
+     * @param reset      délai avant que la rafale complète soit de nouveau disponible
+     */
+    public RateLimitExceededException(String message, int limit, Duration window, Duration retryAfter, Duration reset) {
+        super(message, retryAfter);
+        this.limit = limit;
+        this.window = window;
+        this.reset = reset;
+    }
+}
@@ -0,0 +1,22 @@
+package fr.cnam.initializr.facade.business.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class Batch {
+    @NotNull
+    private List<@Valid Component> components;
+    @NotNull
+    private List<@Valid Contract> contracts;
+
+    public Batch(List<Component> components, List<Contract> contracts) {
+        this.components = components;
+        this.contracts = contracts;
+    }
+}
@@ -0,0 +1,19 @@
+package fr.cnam.initializr.facade.business.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Archives générées pour un {@link Batch}, dans l'ordre des composants et des contrats demandés.
+ */
+@Getter
+public class BatchResult {
+    private final List<Instance> components;
+    private final List<Instance> contracts;
+
+    public BatchResult(List<Instance> components, List<Instance> contracts) {
+        this.components = components;
+        this.contracts = contracts;
+    }
+}
@@ -0,0 +1,40 @@
+package fr.cnam.initializr.facade.business.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Catalogue immuable des features et des types de contrat proposés par un starter kit.
+ * <p>
+ * Les listes sont construites une seule fois par chargement des métadonnées et peuvent être renvoyées telles quelles ;
+ * les index associés permettent de valider une feature ou un contrat en temps constant.
+ */
+@Getter
+public class FeatureCatalog {
+    public static final FeatureCatalog EMPTY = new FeatureCatalog(List.of(), List.of());
+
+    private final List<String> componentFeatures;
+    private final List<String> contracts;
+    @Getter(AccessLevel.NONE)
+    private final Set<String> componentFeatureIndex;
+    @Getter(AccessLevel.NONE)
+    private final Set<String> contractIndex;
+
+    public FeatureCatalog(List<String> componentFeatures, List<String> contracts) {
+        this.componentFeatures = List.copyOf(componentFeatures);
+        this.contracts = List.copyOf(contracts);
+        this.componentFeatureIndex = Set.copyOf(componentFeatures);
+        this.contractIndex = Set.copyOf(contracts);
+    }
+
+    public boolean hasComponentFeature(String feature) {
+        return feature != null && componentFeatureIndex.contains(feature);
+    }
+
+    public boolean hasContract(String contractType) {
+        return contractType != null && contractIndex.contains(contractType);
+    }
+}
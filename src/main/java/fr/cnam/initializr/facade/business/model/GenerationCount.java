@@ -0,0 +1,7 @@
+package fr.cnam.initializr.facade.business.model;
+
+/**
+ * Nombre de générations, ou d'usages d'une feature, pour une clé éventuellement réduite à certaines dimensions.
+ */
+public record GenerationCount(StatisticsKey key, long count) {
+}
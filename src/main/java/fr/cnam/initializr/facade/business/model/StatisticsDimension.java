@@ -0,0 +1,13 @@
+package fr.cnam.initializr.facade.business.model;
+
+/**
+ * Dimension selon laquelle les statistiques de génération peuvent être filtrées et regroupées.
+ */
+public enum StatisticsDimension {
+    DAY,
+    DDS,
+    TYPE_SK,
+    VERSION_SK,
+    TYPE_MODULE,
+    FEATURE
+}
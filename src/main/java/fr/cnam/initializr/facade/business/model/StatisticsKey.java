@@ -0,0 +1,37 @@
+package fr.cnam.initializr.facade.business.model;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Clé d'un compteur de générations.
+ * <p>
+ * Une génération incrémente le compteur de sa clé sans feature, puis celui de chacune de ses features : les premiers
+ * comptent les générations, les seconds l'usage des features.
+ *
+ * @param feature la feature, ou le type de contrat, comptée ; {@code null} pour le compteur des générations
+ */
+public record StatisticsKey(LocalDate day,
+                            String dds,
+                            String typeSK,
+                            String versionSK,
+                            String typeModule,
+                            String feature) {
+
+    public StatisticsKey withFeature(String feature) {
+        return new StatisticsKey(day, dds, typeSK, versionSK, typeModule, feature);
+    }
+
+    /**
+     * @return la clé réduite aux dimensions données, les autres valant {@code null}
+     */
+    public StatisticsKey project(Set<StatisticsDimension> dimensions) {
+        return new StatisticsKey(
+                dimensions.contains(StatisticsDimension.DAY) ? day : null,
+                dimensions.contains(StatisticsDimension.DDS) ? dds : null,
+                dimensions.contains(StatisticsDimension.TYPE_SK) ? typeSK : null,
+                dimensions.contains(StatisticsDimension.VERSION_SK) ? versionSK : null,
+                dimensions.contains(StatisticsDimension.TYPE_MODULE) ? typeModule : null,
+                dimensions.contains(StatisticsDimension.FEATURE) ? feature : null);
+    }
+}
@@ -0,0 +1,38 @@
+package fr.cnam.initializr.facade.business.model;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Requête sur les statistiques de génération. Les critères {@code null} ne filtrent pas.
+ *
+ * @param from    premier jour inclus
+ * @param to      dernier jour inclus
+ * @param feature si renseigné, ou si les résultats sont regroupés par feature, l'usage des features est compté
+ *                plutôt que les générations
+ * @param groupBy les dimensions selon lesquelles les compteurs sont regroupés ; aucune pour un total
+ */
+public record StatisticsQuery(LocalDate from,
+                              LocalDate to,
+                              String dds,
+                              String typeSK,
+                              String versionSK,
+                              String typeModule,
+                              String feature,
+                              Set<StatisticsDimension> groupBy) {
+
+    public boolean countsFeatures() {
+        return feature != null || groupBy.contains(StatisticsDimension.FEATURE);
+    }
+
+    public boolean matches(StatisticsKey key) {
+        return !key.day().isBefore(from)
+                && !key.day().isAfter(to)
+                && (dds == null || dds.equals(key.dds()))
+                && (typeSK == null || typeSK.equals(key.typeSK()))
+                && (versionSK == null || versionSK.equals(key.versionSK()))
+                && (typeModule == null || typeModule.equals(key.typeModule()))
+                && (feature == null || feature.equals(key.feature()))
+                && countsFeatures() == (key.feature() != null);
+    }
+}
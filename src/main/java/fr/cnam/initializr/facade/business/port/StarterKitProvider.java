@@ -0,0 +1,36 @@
+package fr.cnam.initializr.facade.business.port;
+
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+
+import java.util.List;
+
+/**
+ * Instanciateur d'un starter kit. Chaque fournisseur gère son propre cache de métadonnées ;
+ * ils sont regroupés par le {@code StarterKitProviderRegistry}.
+ */
+public interface StarterKitProvider {
+    StarterKit getStarterKit();
+
+    Instance generateComponent(Component request);
+    List<String> getComponentFeatures();
+
+    Instance generateContract(Contract request);
+    List<String> getAvailableContracts();
+
+    FeatureCatalog getCatalog();
+
+    /**
+     * Charge les métadonnées au démarrage de l'application. Un échec n'est pas propagé :
+     * le chargement sera retenté à la première demande.
+     */
+    void loadMetadata();
+
+    /**
+     * Rafraîchit les métadonnées si elles approchent de leur expiration.
+     */
+    void refreshMetadataIfDue();
+}
@@ -0,0 +1,14 @@
+package fr.cnam.initializr.facade.business.port;
+
+import fr.cnam.initializr.facade.business.model.StatisticsKey;
+
+import java.util.Map;
+
+/**
+ * Persistance des compteurs de générations entre deux démarrages de l'application.
+ */
+public interface StatisticsStore {
+    Map<StatisticsKey, Long> load();
+
+    void save(Map<StatisticsKey, Long> counters);
+}
@@ -1,15 +1,11 @@
 package fr.cnam.initializr.facade.business.port;
 
-import fr.cnam.initializr.facade.business.model.Component;
-import fr.cnam.initializr.facade.business.model.Contract;
-import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.business.model.StarterKit;
 
-import java.util.List;
+public interface TonicProvider extends StarterKitProvider {
 
-public interface TonicProvider {
-    Instance generateComponent(Component request);
-    List<String> getComponentFeatures();
-
-    Instance generateContract(Contract request);
-    List<String> getAvailableContracts();
+    @Override
+    default StarterKit getStarterKit() {
+        return StarterKit.TONIC;
+    }
 }
@@ -0,0 +1,201 @@
+package fr.cnam.initializr.facade.business.service;
+
+import fr.cnam.initializr.facade.business.model.Batch;
+import fr.cnam.initializr.facade.business.model.BatchResult;
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
+import fr.cnam.toni.starter.core.exceptions.ServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Génération d'un lot de composants et de contrats.
+ * <p>
+ * Tous les éléments du lot sont validés sur un même instantané des métadonnées avant toute génération,
+ * puis générés en parallèle avec une concurrence bornée : la durée totale est ainsi proche de celle
+ * de la génération la plus longue plutôt que de la somme des générations.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Validated
+public class BatchService {
+    private final ComponentService componentService;
+    private final ContractService contractService;
+    private final StarterKitProviderRegistry providers;
+    private final GenerationRateLimiter rateLimiter;
+
+    @Value("${initializer.batch.max-items:20}")
+    private int maxItems;
+
+    @Value("${initializer.batch.max-parallelism:4}")
+    private int maxParallelism;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private SimpleAsyncTaskExecutor generationExecutor;
+
+    @PostConstruct
+    public void initExecutor() {
+        generationExecutor = new SimpleAsyncTaskExecutor("batch-generation-");
+        generationExecutor.setVirtualThreads(virtualThreads);
+    }
+
+    public BatchResult generateBatch(@Valid Batch batch) {
+        validateBatch(batch);
+
+        Semaphore permits = new Semaphore(maxParallelism);
+        List<CompletableFuture<Instance>> components = new ArrayList<>();
+        List<CompletableFuture<Instance>> contracts = new ArrayList<>();
+        try {
+            for (Component component : batch.getComponents()) {
+                components.add(submit(permits, () -> componentService.instantiateComponent(component)));
+            }
+            for (Contract contract : batch.getContracts()) {
+                contracts.add(submit(permits, () -> contractService.instantiateContract(contract)));
+            }
+
+            log.info("Generating batch of {} components and {} contracts", components.size(), contracts.size());
+            return new BatchResult(join(components), join(contracts));
+        } catch (RuntimeException e) {
+            discard(components);
+            discard(contracts);
+            throw e;
+        }
+    }
+
+    private void validateBatch(Batch batch) {
+        int itemCount = batch.getComponents().size() + batch.getContracts().size();
+        if (itemCount == 0 || itemCount > maxItems) {
+            throw new ClientException(
+                    CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
+                    "A batch must contain between 1 and " + maxItems + " items, got " + itemCount
+            );
+        }
+
+        // Catalogues de tous les starter kits du lot, récupérés en parallèle ; un starter kit non disponible
+        // est rejeté par la validation de l'élément qui le référence
+        Set<StarterKit> starterKits = EnumSet.noneOf(StarterKit.class);
+        batch.getComponents().forEach(component -> addStarterKit(starterKits, component.getStarterKit()));
+        batch.getContracts().forEach(contract -> addStarterKit(starterKits, contract.getStarterKit()));
+        Map<StarterKit, FeatureCatalog> catalogs = providers.getCatalogs(starterKits);
+
+        for (Component component : batch.getComponents()) {
+            componentService.validateComponent(component, getCatalog(catalogs, component.getStarterKit()));
+        }
+
+        for (Contract contract : batch.getContracts()) {
+            contractService.validateContract(contract, getCatalog(catalogs, contract.getStarterKit()));
+        }
+
+        // Chaque élément du lot coûte un jeton au produit qui le demande
+        Map<List<String>, Integer> generationsByCaller = new LinkedHashMap<>();
+        batch.getComponents().forEach(component -> generationsByCaller.merge(
+                List.of(component.getProductName(), component.getCodeApplicatif()), 1, Integer::sum));
+        batch.getContracts().forEach(contract -> generationsByCaller.merge(
+                List.of(contract.getProductName(), contract.getCodeApplicatif()), 1, Integer::sum));
+        acquireAll(generationsByCaller);
+    }
+
+    /**
+     * Consomme les jetons de tous les produits du lot, ou d'aucun : si un produit a dépassé son débit, les jetons déjà
+     * consommés pour les autres leur sont restitués.
+     */
+    private void acquireAll(Map<List<String>, Integer> generationsByCaller) {
+        Map<List<String>, Integer> acquired = new LinkedHashMap<>();
+        try {
+            generationsByCaller.forEach((caller, generations) -> {
+                rateLimiter.acquire(caller.get(0), caller.get(1), generations);
+                acquired.put(caller, generations);
+            });
+        } catch (RuntimeException e) {
+            acquired.forEach((caller, generations) -> rateLimiter.release(caller.get(0), caller.get(1), generations));
+            throw e;
+        }
+    }
+
+    private static void addStarterKit(Set<StarterKit> starterKits, StarterKit starterKit) {
+        if (starterKit != null) {
+            starterKits.add(starterKit);
+        }
+    }
+
+    private static FeatureCatalog getCatalog(Map<StarterKit, FeatureCatalog> catalogs, StarterKit starterKit) {
+        return starterKit == null ? FeatureCatalog.EMPTY : catalogs.getOrDefault(starterKit, FeatureCatalog.EMPTY);
+    }
+
+    private CompletableFuture<Instance> submit(Semaphore permits, Supplier<Instance> generation) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
+        }
+
+        CompletableFuture<Instance> future;
+        try {
+            future = CompletableFuture.supplyAsync(generation, generationExecutor);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.whenComplete((instance, error) -> permits.release());
+        return future;
+    }
+
+    /**
+     * Libère les archives déjà générées d'un lot en échec : une archive en streaming retient sa connexion vers le service amont.
+     */
+    private static void discard(List<CompletableFuture<Instance>> futures) {
+        for (CompletableFuture<Instance> future : futures) {
+            future.thenAccept(instance -> {
+                if (instance != null && instance.getContent().isOpen()) {
+                    try {
+                        instance.getContent().getInputStream().close();
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("Unable to release archive of failed batch: {}", e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    private static List<Instance> join(List<CompletableFuture<Instance>> futures) {
+        List<Instance> instances = new ArrayList<>(futures.size());
+        for (CompletableFuture<Instance> future : futures) {
+            try {
+                instances.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        return instances;
+    }
+}
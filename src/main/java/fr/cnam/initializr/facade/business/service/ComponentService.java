@@ -1,9 +1,9 @@
 package fr.cnam.initializr.facade.business.service;
 
 import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.model.StarterKit;
-import fr.cnam.initializr.facade.business.port.TonicProvider;
 import fr.cnam.toni.starter.core.exceptions.ClientException;
 import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
 import jakarta.validation.Valid;
@@ -12,7 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -21,17 +21,30 @@ import java.util.List;
 @Validated
 public class ComponentService {
     private final MetricService metricService;
-    private final TonicProvider tonicProvider;
-    public static final List<StarterKit> AVAILABLE_COMPONENT_STARTER_KITS = List.of(StarterKit.TONIC);
+    private final StarterKitProviderRegistry providers;
+    private final GenerationRateLimiter rateLimiter;
 
     public Instance generateComponent(@Valid Component component) {
+        validateComponent(component, getCatalog(component.getStarterKit()));
+        rateLimiter.acquire(component.getProductName(), component.getCodeApplicatif(), 1);
+
+        return instantiateComponent(component);
+    }
+
+    /**
+     * Valide un composant par rapport au catalogue fourni, afin qu'un lot de composants soit validé
+     * sur un même instantané des métadonnées.
+     */
+    public void validateComponent(Component component, FeatureCatalog catalog) {
         validateComponentStarterKit(component.getStarterKit());
-        validateFeatures(component);
+        validateFeatures(component, catalog);
+    }
 
-        Instance instance = null;
-        if (component.getStarterKit() == StarterKit.TONIC) {
-            instance = tonicProvider.generateComponent(component);
-        }
+    /**
+     * Génère un composant déjà validé par {@link #validateComponent(Component, FeatureCatalog)} et enregistre la métrique associée.
+     */
+    public Instance instantiateComponent(Component component) {
+        Instance instance = providers.get(component.getStarterKit()).generateComponent(component);
 
         metricService.recordComponentGeneration(component);
 
@@ -39,53 +52,59 @@ public class ComponentService {
     }
 
     public List<StarterKit> getAvailableStarterKits() {
-        return AVAILABLE_COMPONENT_STARTER_KITS;
+        return providers.getStarterKits();
     }
 
     public List<String> getComponentFeatures(StarterKit starterKit) {
         validateComponentStarterKit(starterKit);
 
-        List<String> features = Collections.emptyList();
-        if (starterKit == StarterKit.TONIC) {
-            features = tonicProvider.getComponentFeatures();
-        }
-
-        return features;
+        return providers.get(starterKit).getComponentFeatures();
     }
 
     public void validateComponentStarterKit(StarterKit starterKit) {
-        if (AVAILABLE_COMPONENT_STARTER_KITS.stream().noneMatch(availableStarterKit -> availableStarterKit.equals(starterKit))) {
+        if (!providers.supports(starterKit)) {
             throw new ClientException(
                     CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
-                    "Invalid starter kit : " + starterKit + ". Available starter kits are: " + AVAILABLE_COMPONENT_STARTER_KITS
+                    "Invalid starter kit : " + starterKit + ". Available starter kits are: " + providers.getStarterKits()
             );
         }
     }
 
-    private void validateFeatures(Component component) {
+    public FeatureCatalog getCatalog(StarterKit starterKit) {
+        validateComponentStarterKit(starterKit);
+
+        return providers.get(starterKit).getCatalog();
+    }
+
+    private void validateFeatures(Component component, FeatureCatalog catalog) {
         List<String> requestedFeatures = component.getFeatures();
         if (requestedFeatures == null || requestedFeatures.isEmpty()) {
             log.info("No features requested for type: {}, skipping validation", component.getStarterKit());
             return;
         }
 
-        List<String> availableFeatures = getComponentFeatures(component.getStarterKit());
-        if (availableFeatures.isEmpty()) {
+        if (catalog.getComponentFeatures().isEmpty()) {
             throw new ClientException(
                     CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
                     "No features available for starter kit type: " + component.getStarterKit()
             );
         }
 
-        List<String> invalidFeatures = requestedFeatures.stream()
-                .filter(feature -> !availableFeatures.contains(feature))
-                .toList();
+        List<String> invalidFeatures = null;
+        for (String feature : requestedFeatures) {
+            if (!catalog.hasComponentFeature(feature)) {
+                if (invalidFeatures == null) {
+                    invalidFeatures = new ArrayList<>();
+                }
+                invalidFeatures.add(feature);
+            }
+        }
 
-        if (!invalidFeatures.isEmpty()) {
+        if (invalidFeatures != null) {
             throw new ClientException(
                     CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
                     String.format("%s. Available features are: %s",
-                            invalidFeatures, availableFeatures)
+                            invalidFeatures, catalog.getComponentFeatures())
             );
         }
 
@@ -1,9 +1,10 @@
 package fr.cnam.initializr.facade.business.service;
 
 import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.model.StarterKit;
-import fr.cnam.initializr.facade.business.port.TonicProvider;
+import fr.cnam.initializr.facade.business.port.StarterKitProvider;
 import fr.cnam.toni.starter.core.exceptions.ClientException;
 import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
 import jakarta.validation.Valid;
@@ -20,18 +21,31 @@ import java.util.List;
 @Slf4j
 @Validated
 public class ContractService {
-    private final TonicProvider tonicProvider;
+    private final StarterKitProviderRegistry providers;
     private final MetricService metricService;
-    public static final List<StarterKit> AVAILABLE_CONTRACT_STARTER_KITS = List.of(StarterKit.TONIC);
+    private final GenerationRateLimiter rateLimiter;
 
     public Instance generateContract(@Valid Contract contract) {
+        validateContract(contract, getCatalog(contract.getStarterKit()));
+        rateLimiter.acquire(contract.getProductName(), contract.getCodeApplicatif(), 1);
+
+        return instantiateContract(contract);
+    }
+
+    /**
+     * Valide un contrat par rapport au catalogue fourni, afin qu'un lot de contrats soit validé
+     * sur un même instantané des métadonnées.
+     */
+    public void validateContract(Contract contract, FeatureCatalog catalog) {
         validateContractStarterKit(contract.getStarterKit());
-        validateContractType(contract.getStarterKit(), contract.getContractType());
+        validateContractType(contract.getContractType(), catalog);
+    }
 
-        Instance instance = null;
-        if (contract.getStarterKit() == StarterKit.TONIC) {
-            instance = tonicProvider.generateContract(contract);
-        }
+    /**
+     * Génère un contrat déjà validé par {@link #validateContract(Contract, FeatureCatalog)} et enregistre la métrique associée.
+     */
+    public Instance instantiateContract(Contract contract) {
+        Instance instance = providers.get(contract.getStarterKit()).generateContract(contract);
 
         metricService.recordContractGeneration(contract);
 
@@ -39,33 +53,30 @@ public class ContractService {
     }
 
     public List<String> getAvailableContracts(StarterKit starterKit) {
-        List<String> contractTypes = Collections.emptyList();
+        return providers.find(starterKit)
+                .map(StarterKitProvider::getAvailableContracts)
+                .orElse(Collections.emptyList());
+    }
 
-        if (starterKit == StarterKit.TONIC) {
-            contractTypes = tonicProvider.getAvailableContracts();
-        }
+    public FeatureCatalog getCatalog(StarterKit starterKit) {
+        validateContractStarterKit(starterKit);
 
-        return contractTypes;
+        return providers.get(starterKit).getCatalog();
     }
 
-    private void validateContractType(StarterKit starterKit, String contractType) {
-        List<String> availableContractTypes = Collections.emptyList();
-        if (starterKit.equals(StarterKit.TONIC)) {
-            availableContractTypes = tonicProvider.getAvailableContracts();
-        }
-
-        if (!availableContractTypes.contains(contractType)) {
+    private void validateContractType(String contractType, FeatureCatalog catalog) {
+        if (!catalog.hasContract(contractType)) {
             throw new ClientException(CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
-                    "Invalid contract type: " + contractType + ". Available contract types are: " + availableContractTypes
+                    "Invalid contract type: " + contractType + ". Available contract types are: " + catalog.getContracts()
             );
         }
     }
 
     public void validateContractStarterKit(StarterKit starterKit) {
-        if (AVAILABLE_CONTRACT_STARTER_KITS.stream().noneMatch(availableStarterKit -> availableStarterKit.equals(starterKit))) {
+        if (!providers.supports(starterKit)) {
             throw new ClientException(
                     CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
-                    "Invalid starter kit starterKit: " + starterKit + ". Available contract types are: " + AVAILABLE_CONTRACT_STARTER_KITS
+                    "Invalid starter kit starterKit: " + starterKit + ". Available contract types are: " + providers.getStarterKits()
             );
         }
     }
@@ -0,0 +1,182 @@
+package fr.cnam.initializr.facade.business.service;
+
+import fr.cnam.initializr.facade.business.exception.RateLimitExceededException;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite de débit des générations par produit, et optionnellement par code applicatif, afin qu'un produit ne puisse
+ * accaparer la capacité de TONIC.
+ * <p>
+ * Chaque produit dispose d'un seau de jetons, implémenté selon l'algorithme GCRA : son état se réduit à l'instant
+ * théorique d'arrivée de la prochaine génération, mis à jour par compare-and-set. Une génération coûte un jeton, les
+ * jetons se reconstituent au débit {@code rate / period} et s'accumulent jusqu'à {@code burst}. Une génération sans
+ * jeton disponible est refusée par une {@link RateLimitExceededException}, sans attente. Une demande de plus de
+ * {@code burst} générations à la fois, qui ne pourrait jamais être satisfaite, est refusée comme invalide.
+ * <p>
+ * Le nombre de seaux est borné par {@code max-keys}. Lorsque la borne est atteinte, les seaux pleins, dont l'état
+ * équivaut à leur absence, sont supprimés au plus une fois par seconde ; s'il n'en reste pas assez, les nouveaux
+ * produits se partagent un nombre fixe de seaux selon l'empreinte de leur clé.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GenerationRateLimiter {
+    private static final int OVERFLOW_BUCKETS = 256;
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final FacadeMetrics metrics;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong[] overflowBuckets = new AtomicLong[OVERFLOW_BUCKETS];
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @Value("${initializer.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${initializer.rate-limit.rate:30}")
+    private int rate;
+
+    @Value("${initializer.rate-limit.period:60000}")
+    private long period;
+
+    @Value("${initializer.rate-limit.burst:10}")
+    private int burst;
+
+    @Value("${initializer.rate-limit.by-code-applicatif:false}")
+    private boolean byCodeApplicatif;
+
+    @Value("${initializer.rate-limit.max-keys:10000}")
+    private int maxKeys;
+
+    private long emissionInterval;
+    private long burstTolerance;
+
+    @PostConstruct
+    public void init() {
+        emissionInterval = Duration.ofMillis(period).toNanos() / Math.max(1, rate);
+        burstTolerance = emissionInterval * Math.max(1, burst);
+        for (int i = 0; i < OVERFLOW_BUCKETS; i++) {
+            overflowBuckets[i] = new AtomicLong(Long.MIN_VALUE);
+        }
+        metrics.registerGauge("fainj.rate-limit.keys", "Products tracked by the generation rate limiter",
+                buckets, Map::size);
+        metrics.registerCounter("fainj.rate-limit.rejected", "Generations rejected because the product exceeded its rate limit",
+                rejectedCount, LongAdder::sum);
+    }
+
+    /**
+     * Consomme les jetons nécessaires aux générations demandées par un produit.
+     *
+     * @param productName    le produit demandeur
+     * @param codeApplicatif le code applicatif, pris en compte si la limite s'applique par code applicatif
+     * @param permits        le nombre de générations
+     * @throws ClientException            si les générations demandées dépassent la rafale autorisée
+     * @throws RateLimitExceededException si le produit n'a plus assez de jetons
+     */
+    public void acquire(String productName, String codeApplicatif, int permits) {
+        if (!enabled || permits <= 0) {
+            return;
+        }
+
+        String key = key(productName, codeApplicatif);
+        if (permits > Math.max(1, burst)) {
+            rejectedCount.increment();
+            throw new ClientException(CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
+                    "Cannot request " + permits + " generations at once for " + key + ", the rate limit allows at most "
+                            + Math.max(1, burst));
+        }
+        AtomicLong bucket = bucket(key);
+        long increment = emissionInterval * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long theoreticalArrival = bucket.get();
+            long start = theoreticalArrival == Long.MIN_VALUE ? now : Math.max(theoreticalArrival, now);
+            long excess = start + increment - now - burstTolerance;
+            if (excess > 0) {
+                rejectedCount.increment();
+                log.debug("Rate limit exceeded for {}, retry in {} ms", key, excess / 1_000_000);
+                throw new RateLimitExceededException("Rate limit exceeded for " + key,
+                        Math.max(1, burst),
+                        Duration.ofNanos(burstTolerance),
+                        Duration.ofNanos(excess),
+                        Duration.ofNanos(start - now));
+            }
+            if (bucket.compareAndSet(theoreticalArrival, start + increment)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Restitue des jetons consommés pour des générations finalement abandonnées, par exemple celles d'un lot dont un
+     * autre produit a dépassé son débit.
+     *
+     * @param permits le nombre de jetons consommés par {@link #acquire(String, String, int)}
+     */
+    public void release(String productName, String codeApplicatif, int permits) {
+        if (!enabled || permits <= 0) {
+            return;
+        }
+
+        AtomicLong bucket = bucket(key(productName, codeApplicatif));
+        long decrement = emissionInterval * permits;
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            if (theoreticalArrival == Long.MIN_VALUE
+                    || bucket.compareAndSet(theoreticalArrival, theoreticalArrival - decrement)) {
+                return;
+            }
+        }
+    }
+
+    private String key(String productName, String codeApplicatif) {
+        return byCodeApplicatif ? productName + '/' + codeApplicatif : productName;
+    }
+
+    private AtomicLong bucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxKeys) {
+            sweepFullBuckets();
+            if (buckets.size() >= maxKeys) {
+                return overflowBuckets[Math.floorMod(key.hashCode(), OVERFLOW_BUCKETS)];
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    /**
+     * Supprime les seaux pleins. Une génération concurrente sur un seau supprimé peut n'être pas décomptée,
+     * ce qui ne concède au plus qu'un jeton par produit et par balayage.
+     */
+    private void sweepFullBuckets() {
+        long now = System.nanoTime();
+        long previous = lastSweep.get();
+        if (now - previous < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(previous, now)) {
+            return;
+        }
+
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> {
+            long theoreticalArrival = bucket.get();
+            return theoreticalArrival == Long.MIN_VALUE || theoreticalArrival - now <= 0;
+        });
+        log.debug("Rate limiter swept {} idle products, {} tracked", before - buckets.size(), buckets.size());
+    }
+}
@@ -15,6 +15,7 @@ import java.time.LocalDate;
 public class MetricService {
 
     private final MetricProvider metricProvider;
+    private final StatisticsService statisticsService;
 
     @Value("${initializer.starter-kit.versions.TONIC}")
     private String tonicVersion;
@@ -61,6 +62,11 @@ public class MetricService {
     }
 
     private void recordMetricSafely(Metric moduleMetric, String resourceType, String codeApplicatif) {
+        try {
+            statisticsService.record(moduleMetric);
+        } catch (RuntimeException e) {
+            log.error("Failed to count {} generation in statistics: {}", resourceType, e.getMessage(), e);
+        }
         try {
             log.debug("Recording metric for {} generation: {}", resourceType, moduleMetric.toString());
             metricProvider.recordMetric(moduleMetric);
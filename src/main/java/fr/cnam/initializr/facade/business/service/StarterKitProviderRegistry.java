@@ -0,0 +1,136 @@
+package fr.cnam.initializr.facade.business.service;
+
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.initializr.facade.business.port.StarterKitProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Fournisseurs des starter kits disponibles, indexés par {@link StarterKit}.
+ * <p>
+ * Un starter kit est disponible dès qu'un {@link StarterKitProvider} le prend en charge. Les métadonnées de tous
+ * les fournisseurs sont chargées et rafraîchies en parallèle, de sorte que l'ajout d'un fournisseur n'allonge
+ * ni le démarrage ni les listes de la durée de ses appels au service amont.
+ */
+@Slf4j
+@Service
+public class StarterKitProviderRegistry {
+    private final Map<StarterKit, StarterKitProvider> providers = new EnumMap<>(StarterKit.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private SimpleAsyncTaskExecutor metadataExecutor;
+
+    public StarterKitProviderRegistry(List<StarterKitProvider> providers) {
+        for (StarterKitProvider provider : providers) {
+            StarterKitProvider previous = this.providers.put(provider.getStarterKit(), provider);
+            if (previous != null) {
+                throw new IllegalStateException("Several providers registered for starter kit " + provider.getStarterKit());
+            }
+        }
+    }
+
+    @PostConstruct
+    public void initExecutor() {
+        metadataExecutor = new SimpleAsyncTaskExecutor("starter-kit-metadata-");
+        metadataExecutor.setVirtualThreads(virtualThreads);
+    }
+
+    /**
+     * @return les starter kits disponibles, dans l'ordre de leur déclaration
+     */
+    public List<StarterKit> getStarterKits() {
+        return List.copyOf(providers.keySet());
+    }
+
+    public boolean supports(StarterKit starterKit) {
+        return starterKit != null && providers.containsKey(starterKit);
+    }
+
+    public Optional<StarterKitProvider> find(StarterKit starterKit) {
+        return Optional.ofNullable(starterKit == null ? null : providers.get(starterKit));
+    }
+
+    /**
+     * @throws IllegalArgumentException si le starter kit n'est pas disponible, ce que l'appelant doit avoir vérifié
+     */
+    public StarterKitProvider get(StarterKit starterKit) {
+        return find(starterKit).orElseThrow(() -> new IllegalArgumentException(
+                "No provider registered for starter kit " + starterKit));
+    }
+
+    /**
+     * Récupère en parallèle les catalogues des starter kits donnés. Les starter kits non disponibles sont ignorés.
+     */
+    public Map<StarterKit, FeatureCatalog> getCatalogs(Collection<StarterKit> starterKits) {
+        Map<StarterKit, CompletableFuture<FeatureCatalog>> futures = new EnumMap<>(StarterKit.class);
+        for (StarterKit starterKit : starterKits) {
+            find(starterKit).ifPresent(provider -> futures.computeIfAbsent(starterKit,
+                    kit -> futures.isEmpty() && starterKits.size() == 1
+                            ? CompletableFuture.completedFuture(provider.getCatalog())
+                            : CompletableFuture.supplyAsync(provider::getCatalog, metadataExecutor)));
+        }
+
+        Map<StarterKit, FeatureCatalog> catalogs = new EnumMap<>(StarterKit.class);
+        futures.forEach((starterKit, future) -> catalogs.put(starterKit, join(future)));
+        return Collections.unmodifiableMap(catalogs);
+    }
+
+    /**
+     * Charge en parallèle les métadonnées de tous les fournisseurs au démarrage de l'application,
+     * avant qu'elle ne se déclare prête.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void loadMetadata() {
+        forEachProvider("load", StarterKitProvider::loadMetadata);
+    }
+
+    /**
+     * Rafraîchit en parallèle les métadonnées des fournisseurs qui approchent de leur expiration.
+     */
+    public void refreshMetadataIfDue() {
+        forEachProvider("refresh", StarterKitProvider::refreshMetadataIfDue);
+    }
+
+    private void forEachProvider(String operation, Consumer<StarterKitProvider> action) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(providers.size());
+        for (StarterKitProvider provider : providers.values()) {
+            futures.add(CompletableFuture.runAsync(() -> action.accept(provider), metadataExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Unable to {} metadata of starter kit {}: {}", operation, provider.getStarterKit(),
+                                e.getMessage());
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package fr.cnam.initializr.facade.business.service;
+
+import fr.cnam.initializr.facade.business.model.GenerationCount;
+import fr.cnam.initializr.facade.business.model.Metric;
+import fr.cnam.initializr.facade.business.model.StatisticsKey;
+import fr.cnam.initializr.facade.business.model.StatisticsQuery;
+import fr.cnam.initializr.facade.business.port.StatisticsStore;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Statistiques de génération calculées localement, sans interroger le service de métriques.
+ * <p>
+ * Chaque métrique enregistrée incrémente des compteurs {@link LongAdder} indexés par jour, DDS, starter kit, version,
+ * type de module et feature : l'enregistrement ne prend aucun verrou et les requêtes ne coûtent rien au chemin des
+ * générations. Les compteurs sont persistés périodiquement par le {@link StatisticsStore} et les jours sortis de la
+ * période de rétention sont supprimés.
+ * <p>
+ * Les compteurs sont propres à l'instance : ils ne sont pas partagés entre réplicas, et chacun persiste les siens.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatisticsService {
+    private static final Comparator<StatisticsKey> KEY_ORDER = Comparator
+            .comparing(StatisticsKey::day, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StatisticsKey::dds, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StatisticsKey::typeSK, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StatisticsKey::versionSK, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StatisticsKey::typeModule, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StatisticsKey::feature, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final StatisticsStore store;
+    private final FacadeMetrics metrics;
+    private final ConcurrentHashMap<StatisticsKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private long checkpointedUpdates;
+
+    @Value("${initializer.statistics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${initializer.statistics.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${initializer.statistics.max-keys:100000}")
+    private int maxKeys;
+
+    @PostConstruct
+    public void init() {
+        metrics.registerGauge("fainj.statistics.keys", "Generation statistics counters held in memory",
+                counters, Map::size);
+        metrics.registerCounter("fainj.statistics.dropped", "Generation statistics not counted because the counter limit was reached",
+                droppedCount, LongAdder::sum);
+        if (!enabled) {
+            return;
+        }
+
+        store.load().forEach((key, count) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(count));
+        purgeExpired();
+        log.info("Loaded {} generation statistics counters", counters.size());
+    }
+
+    /**
+     * Compte la génération décrite par une métrique, ainsi que chacune de ses features.
+     */
+    public void record(Metric metric) {
+        if (!enabled) {
+            return;
+        }
+
+        StatisticsKey key = new StatisticsKey(metric.getDateInstanciation(), metric.getDds(), metric.getTypeSK(),
+                metric.getVersionSK(), metric.getTypeModule(), null);
+        increment(key);
+        if (metric.getUsecases() != null && !metric.getUsecases().isEmpty()) {
+            for (String feature : metric.getUsecases().split(",")) {
+                increment(key.withFeature(feature));
+            }
+        }
+        updates.increment();
+    }
+
+    /**
+     * @return les compteurs correspondant à la requête, regroupés selon ses dimensions et triés par clé
+     */
+    public List<GenerationCount> query(StatisticsQuery query) {
+        if (query.from().isAfter(query.to())) {
+            throw new ClientException(CommonProblemType.DONNEES_INVALIDES_MSG_AVEC_PROBLEMES,
+                    "Invalid period: " + query.from() + " is after " + query.to());
+        }
+
+        Map<StatisticsKey, Long> groups = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            if (query.matches(key)) {
+                groups.merge(key.project(query.groupBy()), counter.sum(), Long::sum);
+            }
+        });
+
+        List<GenerationCount> counts = new ArrayList<>(groups.size());
+        groups.forEach((key, count) -> counts.add(new GenerationCount(key, count)));
+        counts.sort(Comparator.comparing(GenerationCount::key, KEY_ORDER));
+        return counts;
+    }
+
+    /**
+     * Persiste les compteurs s'ils ont changé depuis la dernière sauvegarde et supprime les jours expirés.
+     */
+    @Scheduled(initialDelayString = "${initializer.statistics.checkpoint-interval:60000}",
+            fixedDelayString = "${initializer.statistics.checkpoint-interval:60000}")
+    public void checkpoint() {
+        if (!enabled) {
+            return;
+        }
+
+        checkpointLock.lock();
+        try {
+            purgeExpired();
+            long currentUpdates = updates.sum();
+            if (currentUpdates == checkpointedUpdates) {
+                return;
+            }
+
+            Map<StatisticsKey, Long> snapshot = new HashMap<>(counters.size());
+            counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+            store.save(snapshot);
+            checkpointedUpdates = currentUpdates;
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private void increment(StatisticsKey key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maxKeys) {
+                droppedCount.increment();
+                return;
+            }
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private void purgeExpired() {
+        LocalDate oldest = LocalDate.now().minus(retentionDays, ChronoUnit.DAYS);
+        counters.keySet().removeIf(key -> key.day() == null || key.day().isBefore(oldest));
+    }
+}
@@ -1,8 +1,15 @@
 package fr.cnam.initializr.facade.config;
 
+import fr.cnam.initializr.facade.business.service.StarterKitProviderRegistry;
+import fr.cnam.initializr.facade.provider.cache.DirectorySharedCache;
+import fr.cnam.initializr.facade.provider.cache.NoOpSharedCache;
+import fr.cnam.initializr.facade.provider.cache.SharedCache;
+import fr.cnam.initializr.facade.provider.service.TonicCachingService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
@@ -10,27 +17,52 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Configuration du système de cache pour l'application.
  * <p>
  * Cette classe configure le système de cache Spring utilisé pour stocker temporairement
- * des données fréquemment accédées, notamment les fonctionnalités disponibles de TONIC.
- * Elle utilise un cache en mémoire basé sur ConcurrentMap avec un TTL configurable.
+ * des données fréquemment accédées. Les fonctionnalités disponibles de TONIC sont quant à elles
+ * conservées par le {@link TonicCachingService}, qui les rafraîchit en arrière-plan avant l'expiration
+ * de leur TTL : cette classe planifie la vérification périodique de ce rafraîchissement, menée en parallèle
+ * pour tous les starter kits par le {@link StarterKitProviderRegistry}.
+ * <p>
+ * Elle fournit aussi le cache de second niveau partagé par les réplicas ({@link SharedCache}), choisi par
+ * {@code cache.shared.type} : {@code none} par défaut, ou {@code directory} pour un répertoire commun aux réplicas.
  */
 @Slf4j
 @Configuration
 @EnableCaching
 @EnableScheduling
+@RequiredArgsConstructor
 public class CacheConfig {
 
+    private final StarterKitProviderRegistry starterKitProviders;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("tonicFeaturesByCategory");
+        return new ConcurrentMapCacheManager();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.shared.type", havingValue = "directory")
+    public SharedCache directorySharedCache(@Value("${cache.shared.directory:${initializer.data-dir:${java.io.tmpdir}/fainj}/shared}") String directory,
+                                            @Value("${cache.shared.poll-interval:5000}") long pollInterval) throws IOException {
+        return new DirectorySharedCache(Path.of(directory), Duration.ofMillis(pollInterval));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.shared.type", havingValue = "none", matchIfMissing = true)
+    public SharedCache noOpSharedCache() {
+        return new NoOpSharedCache();
     }
 
-    @CacheEvict(cacheNames = "tonicFeaturesByCategory", allEntries = true)
-    @Scheduled(fixedRateString = "${cache.tonic-features.ttl}")
-    public void evictTonicCaches() {
-        log.info("Emptying TONIC features cache");
+    @Scheduled(fixedDelayString = "${cache.tonic-features.refresh-check-interval:60000}")
+    public void refreshTonicCaches() {
+        log.debug("Checking whether starter kit metadata caches need a refresh");
+        starterKitProviders.refreshMetadataIfDue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+package fr.cnam.initializr.facade.config;
+
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métriques techniques de la facade, exposées par Micrometer sur {@code /actuator/prometheus}.
+ * <p>
+ * Toutes les métriques sont préfixées par {@code fainj.} ; les durées publient un histogramme
+ * permettant le calcul des percentiles côté Prometheus. Le tag {@code outcome} vaut {@code success},
+ * {@code client_error} pour une requête refusée par la validation, {@code rejected} pour une génération
+ * refusée afin de protéger le service amont, ou {@code error}.
+ */
+@Component
+@RequiredArgsConstructor
+public class FacadeMetrics {
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_CLIENT_ERROR = "client_error";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+    /**
+     * Compteurs des accès aux caches, résolus une fois par cache : ils sont incrémentés à chaque requête.
+     */
+    private final Map<String, CacheCounters> cacheCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Mesure une génération demandée par un client.
+     *
+     * @param endpoint   le point d'accès appelé ({@code components}, {@code contracts}, {@code batches})
+     * @param starterKit le starter kit demandé
+     * @param generation la génération à mesurer
+     */
+    public <T> T recordGeneration(String endpoint, String starterKit, Supplier<T> generation) {
+        return record(Timer.builder("fainj.generation")
+                .description("Generation requests served by the facade")
+                .tag("endpoint", endpoint)
+                .tag("starter.kit", starterKit), generation);
+    }
+
+    /**
+     * Mesure un appel à TONIC.
+     *
+     * @param operation l'opération appelée ({@code generate}, {@code metadata})
+     * @param call      l'appel à mesurer
+     */
+    public <T> T recordTonicCall(String operation, Supplier<T> call) {
+        return record(Timer.builder("fainj.tonic.requests")
+                .description("Calls to the TONIC initializr")
+                .tag("operation", operation), call);
+    }
+
+    /**
+     * Mesure un appel au service de métriques.
+     *
+     * @param call l'appel à mesurer
+     */
+    public void recordMetricServiceCall(Runnable call) {
+        record(Timer.builder("fainj.metric.requests")
+                .description("Calls to the metric service")
+                .tag("operation", "putModule"), () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Compte un accès à un cache de la facade.
+     *
+     * @param cache le cache consulté ({@code tonic.archives}, {@code tonic.metadata})
+     * @param hit   {@code true} si la valeur était présente
+     */
+    public void recordCacheAccess(String cache, boolean hit) {
+        CacheCounters counters = cacheCounters.computeIfAbsent(cache, name -> new CacheCounters(
+                cacheCounter(name, "hit"), cacheCounter(name, "miss")));
+        (hit ? counters.hits() : counters.misses()).increment();
+    }
+
+    private Counter cacheCounter(String cache, String result) {
+        return Counter.builder("fainj.cache.requests")
+                .description("Lookups in the facade caches")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Compte un rafraîchissement des métadonnées TONIC.
+     *
+     * @param result {@code not_modified} si TONIC a répondu 304, {@code unchanged} si le document reçu n'apporte
+     *               aucun changement, {@code modified} si l'instantané a été reconstruit
+     */
+    public void recordMetadataRefresh(String result) {
+        Counter.builder("fainj.tonic.metadata.refreshes")
+                .description("Refreshes of the TONIC metadata snapshot")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Enregistre la taille d'une archive générée.
+     *
+     * @param type  le type d'archive ({@code component}, {@code contract})
+     * @param bytes la taille de l'archive en octets
+     */
+    public void recordArchiveSize(String type, long bytes) {
+        DistributionSummary.builder("fainj.archive.size")
+                .description("Size of the archives served by the facade")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Enregistre une jauge lue sur l'objet donné à chaque collecte.
+     *
+     * @param tags couples clé, valeur des tags de la jauge
+     */
+    public <T> void registerGauge(String name, String description, T state, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, state, value)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Enregistre un compteur monotone lu sur l'objet donné à chaque collecte.
+     */
+    public <T> void registerCounter(String name, String description, T state, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, state, value)
+                .description(description)
+                .register(registry);
+    }
+
+    private <T> T record(Timer.Builder timer, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = call.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } catch (ClientException e) {
+            outcome = OUTCOME_CLIENT_ERROR;
+            throw e;
+        } catch (GenerationRejectedException e) {
+            outcome = OUTCOME_REJECTED;
+            throw e;
+        } finally {
+            sample.stop(timer.tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    private record CacheCounters(Counter hits, Counter misses) {
+    }
+}
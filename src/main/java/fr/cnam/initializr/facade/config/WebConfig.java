@@ -0,0 +1,43 @@
+package fr.cnam.initializr.facade.config;
+
+import fr.cnam.initializr.facade.controller.archive.FileChannelResourceHttpMessageConverter;
+import fr.cnam.initializr.facade.controller.listing.ListingResponseFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Configuration de la couche web.
+ * <p>
+ * Les listes de starter kits, de features et de contrats sont servies par le {@link ListingResponseFilter}
+ * depuis leur réponse déjà sérialisée, avec ETag et {@code Cache-Control}. Les archives écrites sur disque sont
+ * recopiées vers le client par le {@link FileChannelResourceHttpMessageConverter}.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${initializer.listing.max-age:60}")
+    private long listingMaxAge;
+
+    @Bean
+    public ListingResponseFilter listingResponseFilter(FacadeMetrics metrics) {
+        return new ListingResponseFilter(metrics, listingMaxAge);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ListingResponseFilter> listingResponseFilterRegistration(ListingResponseFilter filter) {
+        FilterRegistrationBean<ListingResponseFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/components/*", "/contracts/*");
+        return registration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new FileChannelResourceHttpMessageConverter());
+    }
+}
@@ -0,0 +1,44 @@
+package fr.cnam.initializr.facade.controller.archive;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Écrit les {@link Resource} dont le contenu est un fichier par {@link FileChannel#transferTo} : les archives écrites
+ * sur disque sont recopiées vers le client par blocs de taille fixe, sans jamais être chargées entièrement en mémoire.
+ * Les autres ressources sont écrites comme par le {@link ResourceHttpMessageConverter}.
+ * <p>
+ * Il ne s'agit pas d'une copie sans tampon : le corps de la réponse n'étant ni un fichier ni une socket, le JDK
+ * recopie chaque bloc au travers d'un tampon intermédiaire.
+ */
+public class FileChannelResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!resource.isFile()) {
+            super.writeContent(resource, outputMessage);
+            return;
+        }
+
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            WritableByteChannel body = Channels.newChannel(outputMessage.getBody());
+            if (channel instanceof FileChannel file) {
+                long size = file.size();
+                for (long position = 0; position < size; ) {
+                    position += file.transferTo(position, size - position, body);
+                }
+            } else {
+                Channels.newInputStream(channel).transferTo(outputMessage.getBody());
+            }
+        }
+    }
+}
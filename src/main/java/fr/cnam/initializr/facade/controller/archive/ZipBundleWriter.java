@@ -0,0 +1,226 @@
+package fr.cnam.initializr.facade.controller.archive;
+
+import fr.cnam.initializr.facade.util.ZipCentralDirectory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.CENTRAL_HEADER_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.CENTRAL_HEADER_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.FLAG_DATA_DESCRIPTOR;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.FLAG_UTF8;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.LOCAL_HEADER_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.LOCAL_HEADER_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.MAX_ENTRIES;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.MAX_OFFSET;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.METHOD_STORED;
+
+/**
+ * Fusionne plusieurs archives ZIP en une seule, sans décompression ni recompression.
+ * <p>
+ * Le répertoire central de chaque archive source est relu, puis chaque entrée est recopiée telle quelle
+ * (données compressées, CRC et tailles d'origine) sous un répertoire propre à l'archive. Seuls les en-têtes
+ * sont réécrits : le coût de la fusion est celui d'une simple copie d'octets.
+ * <p>
+ * Les archives ZIP64, multi-volumes ou chiffrées ne sont pas prises en charge.
+ */
+public final class ZipBundleWriter {
+    private static final int VERSION_NEEDED_DEFAULT = 20;
+
+    private final OutputStream out;
+    private final List<byte[]> centralDirectory = new ArrayList<>();
+    private long position;
+    private boolean finished;
+
+    public ZipBundleWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Ajoute toutes les entrées d'une archive sous le répertoire donné.
+     *
+     * @param directory le répertoire sous lequel placer les entrées de l'archive : un seul segment, sans « / »
+     * @param archive   le contenu complet de l'archive ZIP source
+     * @throws ZipException si l'archive est invalide, utilise un format non pris en charge ou contient une entrée
+     *                      qui sortirait de son répertoire
+     */
+    public void addArchive(String directory, byte[] archive) throws IOException {
+        if (directory.isEmpty() || !isSafeName(directory) || directory.contains("/")) {
+            throw new IllegalArgumentException("Invalid archive directory: " + directory);
+        }
+        String prefix = directory + "/";
+        List<ZipCentralDirectory.Entry> entries = ZipCentralDirectory.read(archive);
+        for (ZipCentralDirectory.Entry entry : entries) {
+            if (entry.name().startsWith("/") || !isSafeName(entry.name())) {
+                throw new ZipException("Unsafe entry name: " + entry.name());
+            }
+        }
+
+        writeDirectoryEntry(prefix);
+        for (ZipCentralDirectory.Entry entry : entries) {
+            copyEntry(archive, entry, prefix);
+        }
+    }
+
+    /**
+     * Écrit le répertoire central de l'archive fusionnée. Le flux de sortie n'est pas fermé.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        if (centralDirectory.size() > MAX_ENTRIES - 1) {
+            throw new ZipException("Too many entries for a merged archive: " + centralDirectory.size());
+        }
+
+        long centralDirectoryOffset = position;
+        for (byte[] header : centralDirectory) {
+            write(header);
+        }
+        long centralDirectorySize = position - centralDirectoryOffset;
+        checkOffset(position);
+
+        ByteBuffer end = header(END_OF_CENTRAL_DIRECTORY_SIZE);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) centralDirectory.size())
+                .putShort((short) centralDirectory.size())
+                .putInt((int) centralDirectorySize)
+                .putInt((int) centralDirectoryOffset)
+                .putShort((short) 0);
+        write(end.array());
+        out.flush();
+    }
+
+    private void copyEntry(byte[] source, ZipCentralDirectory.Entry entry, String prefix) throws IOException {
+        byte[] name = (prefix + entry.name()).getBytes(StandardCharsets.UTF_8);
+
+        // Les tailles et le CRC étant connus, l'en-tête local les porte directement : plus de descripteur de données.
+        int mergedFlags = (entry.flags() & ~FLAG_DATA_DESCRIPTOR) | FLAG_UTF8;
+        long mergedLocalHeaderOffset = position;
+        checkOffset(mergedLocalHeaderOffset);
+
+        ByteBuffer localHeader = header(LOCAL_HEADER_SIZE + name.length + entry.localExtra().length);
+        localHeader.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) entry.versionNeeded())
+                .putShort((short) mergedFlags)
+                .putShort((short) entry.method())
+                .putShort((short) entry.lastModifiedTime())
+                .putShort((short) entry.lastModifiedDate())
+                .putInt(entry.crc())
+                .putInt((int) entry.compressedSize())
+                .putInt((int) entry.size())
+                .putShort((short) name.length)
+                .putShort((short) entry.localExtra().length)
+                .put(name)
+                .put(entry.localExtra());
+        write(localHeader.array());
+        out.write(source, entry.dataOffset(), (int) entry.compressedSize());
+        position += entry.compressedSize();
+
+        ByteBuffer centralHeader = header(CENTRAL_HEADER_SIZE + name.length + entry.extra().length);
+        centralHeader.putInt(CENTRAL_HEADER_SIGNATURE)
+                .putShort((short) entry.versionMadeBy())
+                .putShort((short) entry.versionNeeded())
+                .putShort((short) mergedFlags)
+                .putShort((short) entry.method())
+                .putShort((short) entry.lastModifiedTime())
+                .putShort((short) entry.lastModifiedDate())
+                .putInt(entry.crc())
+                .putInt((int) entry.compressedSize())
+                .putInt((int) entry.size())
+                .putShort((short) name.length)
+                .putShort((short) entry.extra().length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entry.internalAttributes())
+                .putInt(entry.externalAttributes())
+                .putInt((int) mergedLocalHeaderOffset)
+                .put(name)
+                .put(entry.extra());
+        centralDirectory.add(centralHeader.array());
+    }
+
+    private void writeDirectoryEntry(String directory) throws IOException {
+        byte[] name = directory.getBytes(StandardCharsets.UTF_8);
+        long localHeaderOffset = position;
+        checkOffset(localHeaderOffset);
+
+        ByteBuffer localHeader = header(LOCAL_HEADER_SIZE + name.length);
+        localHeader.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_NEEDED_DEFAULT)
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) METHOD_STORED)
+                .putShort((short) 0)
+                .putShort((short) (1 << 5 | 1))
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .put(name);
+        write(localHeader.array());
+
+        ByteBuffer centralHeader = header(CENTRAL_HEADER_SIZE + name.length);
+        centralHeader.putInt(CENTRAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_NEEDED_DEFAULT)
+                .putShort((short) VERSION_NEEDED_DEFAULT)
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) METHOD_STORED)
+                .putShort((short) 0)
+                .putShort((short) (1 << 5 | 1))
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0x10)
+                .putInt((int) localHeaderOffset)
+                .put(name);
+        centralDirectory.add(centralHeader.array());
+    }
+
+    /**
+     * @return {@code false} si le nom contient un « \ », un caractère nul ou un segment « .. »
+     */
+    private static boolean isSafeName(String name) {
+        if (name.indexOf('\\') >= 0 || name.indexOf('\0') >= 0) {
+            return false;
+        }
+        for (String segment : name.split("/", -1)) {
+            if (segment.equals("..")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer header(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void checkOffset(long offset) throws ZipException {
+        if (offset >= MAX_OFFSET) {
+            throw new ZipException("Merged archive exceeds 4 GB");
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+}
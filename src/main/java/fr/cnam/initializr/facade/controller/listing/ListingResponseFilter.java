@@ -0,0 +1,145 @@
+package fr.cnam.initializr.facade.controller.listing;
+
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.service.TonicMetadataRefreshedEvent;
+import fr.cnam.initializr.facade.util.IoUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sert les listes de starter kits, de features et de contrats depuis leur réponse JSON déjà sérialisée.
+ * <p>
+ * Ces listes ne changent qu'au rafraîchissement des métadonnées TONIC : la première réponse 200 de chaque liste est
+ * conservée avec un ETag fort (empreinte SHA-256 du corps), puis renvoyée telle quelle sans solliciter le contrôleur
+ * ni la couche service. Une requête portant un {@code If-None-Match} correspondant reçoit une réponse 304 sans corps,
+ * y compris lorsque la liste vient d'être recalculée.
+ * Les réponses conservées sont invalidées à chaque {@link TonicMetadataRefreshedEvent}.
+ */
+@Slf4j
+public class ListingResponseFilter extends OncePerRequestFilter {
+    private static final PathPatternParser PARSER = new PathPatternParser();
+    private static final List<PathPattern> LISTING_PATHS = List.of(
+            PARSER.parse("/components/starter-kits"),
+            PARSER.parse("/components/{starterKit}/features"),
+            PARSER.parse("/contracts/{starterKit}"));
+    private static final int MAX_ENTRIES = 64;
+
+    private final FacadeMetrics metrics;
+    private final CacheControl cacheControl;
+    private final Map<String, CachedListing> listings = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param metrics les métriques de la facade
+     * @param maxAge  durée pendant laquelle un client peut réutiliser une liste sans la revalider, en secondes
+     */
+    public ListingResponseFilter(FacadeMetrics metrics, long maxAge) {
+        this.metrics = metrics;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAge)).mustRevalidate();
+    }
+
+    @EventListener
+    public void onMetadataRefreshed(TonicMetadataRefreshedEvent event) {
+        version.incrementAndGet();
+        listings.clear();
+        log.debug("TONIC metadata refreshed, pre-serialized listings invalidated");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(pathWithinApplication(request));
+        return LISTING_PATHS.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = pathWithinApplication(request);
+        long currentVersion = version.get();
+        CachedListing cached = listings.get(key);
+        metrics.recordCacheAccess("listings", cached != null && cached.version() == currentVersion);
+        if (cached != null && cached.version() == currentVersion) {
+            write(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null) {
+            CachedListing listing = new CachedListing(wrapper.getContentAsByteArray(), wrapper.getContentType(),
+                    currentVersion);
+            if (version.get() == currentVersion && (listings.size() < MAX_ENTRIES || listings.containsKey(key))) {
+                listings.put(key, listing);
+            }
+            // Le corps mis en mémoire par le wrapper n'est pas recopié : write le renvoie, ou répond 304
+            write(listing, request, response);
+            return;
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(CachedListing listing, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.ETAG, listing.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), listing.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(listing.contentType());
+        response.setContentLength(listing.body().length);
+        response.getOutputStream().write(listing.body());
+    }
+
+    /**
+     * Comparaison faible, comme l'exige RFC 9110 pour {@code If-None-Match}.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record CachedListing(byte[] body, String contentType, long version, String etag) {
+        CachedListing(byte[] body, String contentType, long version) {
+            this(body, contentType, version, '"' + IoUtils.sha256(body) + '"');
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package fr.cnam.initializr.facade.controller.mapper;
+
+import fr.cnam.initializr.facade.business.model.Batch;
+import fr.cnam.initializr.facade.controller.rest.dto.BatchRequest;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@AllArgsConstructor
+public class BatchMapper {
+    ComponentMapper componentMapper;
+    ContractMapper contractMapper;
+
+    public Batch toBusiness(BatchRequest request) {
+        return new Batch(
+                request.components() == null ? List.of() : request.components().stream()
+                        .map(spec -> componentMapper.toBusiness(spec.starterKit(), spec.productName(), spec.codeApplicatif(), spec.features()))
+                        .toList(),
+                request.contracts() == null ? List.of() : request.contracts().stream()
+                        .map(spec -> contractMapper.toBusiness(spec.starterKit(), spec.contractType(), spec.productName(), spec.codeApplicatif()))
+                        .toList());
+    }
+}
@@ -0,0 +1,28 @@
+package fr.cnam.initializr.facade.controller.mapper;
+
+import fr.cnam.initializr.facade.business.model.Instance;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Construit la réponse HTTP d'une archive générée.
+ * <p>
+ * Le corps est un {@link Resource} recopié vers la sortie servlet par blocs de taille fixe au fur et à mesure
+ * de sa lecture : une archive en streaming est ainsi transmise au client sans jamais être chargée en mémoire.
+ * Une archive écrite sur disque est recopiée directement depuis son fichier
+ * (voir {@link fr.cnam.initializr.facade.controller.archive.FileChannelResourceHttpMessageConverter}).
+ */
+@Component
+public class InstanceMapper {
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    public ResponseEntity<Resource> toApiResponse(Instance instance, String filename) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(instance.getContent());
+    }
+}
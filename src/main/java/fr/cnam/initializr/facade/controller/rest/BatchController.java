@@ -0,0 +1,181 @@
+package fr.cnam.initializr.facade.controller.rest;
+
+import fr.cnam.initializr.facade.business.model.BatchResult;
+import fr.cnam.initializr.facade.business.model.Instance;
+import fr.cnam.initializr.facade.business.service.BatchService;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.controller.archive.ZipBundleWriter;
+import fr.cnam.initializr.facade.controller.mapper.BatchMapper;
+import fr.cnam.initializr.facade.controller.rest.dto.BatchLayout;
+import fr.cnam.initializr.facade.controller.rest.dto.BatchRequest;
+import fr.cnam.initializr.facade.controller.rest.dto.ComponentSpec;
+import fr.cnam.initializr.facade.controller.rest.dto.ContractSpec;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Génération en un seul appel d'un lot de composants et de contrats.
+ * <p>
+ * Par défaut, la réponse est une archive ZIP contenant une archive par élément demandé. Les archives générées étant
+ * déjà compressées, elles sont stockées sans recompression et recopiées vers le client au fil de leur lecture.
+ * Avec {@link BatchLayout#MERGED}, leurs entrées sont fusionnées dans une seule archive par {@link ZipBundleWriter}.
+ * <p>
+ * Contrairement aux autres points d'accès, celui-ci et ses DTO ne sont pas générés depuis {@code openapi-facade.yml} :
+ * ce contrat est publié par le projet fainoa et ne peut être modifié ici. Ils devront y être reportés.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class BatchController {
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final BatchService batchService;
+    private final BatchMapper mapper;
+    private final FacadeMetrics metrics;
+
+    @PostMapping(path = "/batches", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> generateBatch(@Valid @RequestBody BatchRequest request,
+                                                               @RequestParam(name = "layout", defaultValue = "NESTED") BatchLayout layout) {
+        BatchResult result = metrics.recordGeneration("batches", toStarterKitTag(request),
+                () -> batchService.generateBatch(mapper.toBusiness(request)));
+
+        Map<String, Instance> entries = toArchiveEntries(request, result);
+        StreamingResponseBody body = layout == BatchLayout.MERGED
+                ? outputStream -> mergeArchives(entries, outputStream)
+                : outputStream -> writeArchives(entries, outputStream);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"batch.zip\"")
+                .body(body);
+    }
+
+    /**
+     * @return le starter kit commun à tous les éléments du lot, ou {@code MIXED}
+     */
+    private static String toStarterKitTag(BatchRequest request) {
+        Set<String> starterKits = new HashSet<>();
+        if (request.components() != null) {
+            request.components().forEach(spec -> starterKits.add(String.valueOf(spec.starterKit())));
+        }
+        if (request.contracts() != null) {
+            request.contracts().forEach(spec -> starterKits.add(String.valueOf(spec.starterKit())));
+        }
+        return starterKits.size() == 1 ? starterKits.iterator().next() : "MIXED";
+    }
+
+    private static Map<String, Instance> toArchiveEntries(BatchRequest request, BatchResult result) {
+        Map<String, Instance> entries = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+
+        List<ComponentSpec> components = request.components() == null ? List.of() : request.components();
+        for (int i = 0; i < components.size(); i++) {
+            ComponentSpec spec = components.get(i);
+            String name = String.format("%s-%s", spec.productName(), spec.codeApplicatif());
+            entries.put(uniqueName(name, names), result.getComponents().get(i));
+        }
+
+        List<ContractSpec> contracts = request.contracts() == null ? List.of() : request.contracts();
+        for (int i = 0; i < contracts.size(); i++) {
+            ContractSpec spec = contracts.get(i);
+            String name = String.format("%s-%s-%s-contract", spec.productName(), spec.codeApplicatif(),
+                    spec.contractType().name().toLowerCase(Locale.ROOT));
+            entries.put(uniqueName(name, names), result.getContracts().get(i));
+        }
+        return entries;
+    }
+
+    private static String uniqueName(String baseName, Set<String> names) {
+        String name = baseName;
+        for (int i = 2; !names.add(name); i++) {
+            name = baseName + "-" + i;
+        }
+        return name;
+    }
+
+    private static void writeArchives(Map<String, Instance> entries, OutputStream outputStream) throws IOException {
+        Iterator<Map.Entry<String, Instance>> remaining = entries.entrySet().iterator();
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            while (remaining.hasNext()) {
+                Map.Entry<String, Instance> entry = remaining.next();
+                try (InputStream content = entry.getValue().getContent().getInputStream()) {
+                    zip.putNextEntry(new ZipEntry(entry.getKey() + ".zip"));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+        } finally {
+            release(remaining);
+        }
+    }
+
+    /**
+     * Fusionne les archives générées sans les recompresser, chacune sous un répertoire portant son nom.
+     * Le répertoire central d'une archive étant situé à sa fin, chaque archive est lue entièrement avant sa recopie.
+     */
+    private static void mergeArchives(Map<String, Instance> entries, OutputStream outputStream) throws IOException {
+        Iterator<Map.Entry<String, Instance>> remaining = entries.entrySet().iterator();
+        try {
+            ZipBundleWriter bundle = new ZipBundleWriter(outputStream);
+            while (remaining.hasNext()) {
+                Map.Entry<String, Instance> entry = remaining.next();
+                bundle.addArchive(entry.getKey(), readArchive(entry.getValue().getContent()));
+            }
+            bundle.finish();
+        } finally {
+            release(remaining);
+        }
+    }
+
+    /**
+     * Libère les archives qui n'ont pas été recopiées, le client ayant interrompu la réponse ou l'écriture ayant
+     * échoué : une archive en streaming retient sa connexion vers TONIC, une archive sur disque sa référence sur le
+     * fichier.
+     */
+    private static void release(Iterator<Map.Entry<String, Instance>> remaining) {
+        while (remaining.hasNext()) {
+            Resource content = remaining.next().getValue().getContent();
+            if (content.isOpen()) {
+                try {
+                    content.getInputStream().close();
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Unable to release archive of interrupted batch: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static byte[] readArchive(Resource content) throws IOException {
+        if (content instanceof ByteArrayResource byteArrayResource) {
+            return byteArrayResource.getByteArray();
+        }
+        try (InputStream inputStream = content.getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
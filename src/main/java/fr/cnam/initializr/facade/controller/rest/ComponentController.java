@@ -4,14 +4,14 @@ import fr.cnam.initializr.facade.business.model.Component;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.model.StarterKit;
 import fr.cnam.initializr.facade.business.service.ComponentService;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
 import fr.cnam.initializr.facade.controller.mapper.ComponentMapper;
+import fr.cnam.initializr.facade.controller.mapper.InstanceMapper;
 import fr.cnam.initializr.facade.controller.mapper.StarterKitMapper;
 import fr.cnam.initializr.facade.controller.rest.api.ComponentsApi;
 import fr.cnam.initializr.facade.controller.rest.model.StarterKitType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,7 +22,9 @@ import java.util.List;
 public class ComponentController implements ComponentsApi {
     private final ComponentService componentService;
     private final ComponentMapper mapper;
+    private final InstanceMapper instanceMapper;
     private final StarterKitMapper starterKitMapper;
+    private final FacadeMetrics metrics;
 
     @Override
     public ResponseEntity<List<StarterKitType>> getAllComponents() {
@@ -38,13 +40,11 @@ public class ComponentController implements ComponentsApi {
                                                           List<String> features) {
         Component businessRequest = mapper.toBusiness(starterKit, productName, codeApplicatif, features);
 
-        Instance instance = componentService.generateComponent(businessRequest);
+        Instance instance = metrics.recordGeneration("components", starterKit.name(),
+                () -> componentService.generateComponent(businessRequest));
 
         String filename = String.format("%s-%s.zip", productName, codeApplicatif);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/zip"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .body(instance.getContent());
+        return instanceMapper.toApiResponse(instance, filename);
     }
 
     @Override
@@ -4,15 +4,15 @@ import fr.cnam.initializr.facade.business.model.Contract;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.model.StarterKit;
 import fr.cnam.initializr.facade.business.service.ContractService;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
 import fr.cnam.initializr.facade.controller.mapper.ContractMapper;
+import fr.cnam.initializr.facade.controller.mapper.InstanceMapper;
 import fr.cnam.initializr.facade.controller.mapper.StarterKitMapper;
 import fr.cnam.initializr.facade.controller.rest.api.ContractsApi;
 import fr.cnam.initializr.facade.controller.rest.model.ContractType;
 import fr.cnam.initializr.facade.controller.rest.model.StarterKitType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,7 +23,9 @@ import java.util.List;
 public class ContractController implements ContractsApi {
     private final ContractService contractService;
     private final ContractMapper mapper;
+    private final InstanceMapper instanceMapper;
     private final StarterKitMapper starterKitMapper;
+    private final FacadeMetrics metrics;
 
     @Override
     public ResponseEntity<Resource> createContract(StarterKitType starterKit,
@@ -32,13 +34,11 @@ public class ContractController implements ContractsApi {
                                                    String codeApplicatif) {
         Contract request = mapper.toBusiness(starterKit, contractType, productName, codeApplicatif);
 
-        Instance archive = contractService.generateContract(request);
+        Instance archive = metrics.recordGeneration("contracts", starterKit.name(),
+                () -> contractService.generateContract(request));
 
         String filename = String.format("%s-%s-contract.zip", productName, codeApplicatif);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/zip"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .body(archive.getContent());
+        return instanceMapper.toApiResponse(archive, filename);
     }
 
     @Override
@@ -0,0 +1,78 @@
+package fr.cnam.initializr.facade.controller.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import fr.cnam.initializr.facade.business.exception.RateLimitExceededException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Traduit les générations refusées par la facade en réponses 503 que le client, ou le répartiteur de charge, peut
+ * renouveler après le délai indiqué par l'en-tête {@code Retry-After}, ou en réponses 429 portant aussi les en-têtes
+ * {@code RateLimit-*} lorsque le produit demandeur a dépassé son débit autorisé.
+ * <p>
+ * Le {@code CommonProblemType} porté par l'exception, requis par TONI, ne dispose d'aucun type associé à ces statuts :
+ * ce résolveur est donc consulté avant la gestion d'erreurs TONI, et produit lui-même la réponse.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GenerationRejectedExceptionResolver implements HandlerExceptionResolver, Ordered {
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
+                                         Object handler, Exception ex) {
+        if (!(ex instanceof GenerationRejectedException rejected) || response.isCommitted()) {
+            return null;
+        }
+
+        log.debug("Generation rejected: {}", rejected.getMessage());
+        ProblemDetail problem;
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(rejected.getRetryAfter())));
+        if (rejected instanceof RateLimitExceededException rateLimited) {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, rejected.getMessage());
+            problem.setTitle("Generation rate limit exceeded");
+            // Les en-têtes RateLimit-* suivent le brouillon IETF « RateLimit header fields for HTTP »
+            response.setHeader("RateLimit-Limit", String.valueOf(rateLimited.getLimit()));
+            response.setHeader("RateLimit-Remaining", "0");
+            response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(rateLimited.getReset())));
+            response.setHeader("RateLimit-Policy",
+                    rateLimited.getLimit() + ";w=" + toSeconds(rateLimited.getWindow()));
+        } else {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, rejected.getMessage());
+            problem.setTitle("Generation temporarily unavailable");
+        }
+
+        try {
+            response.setStatus(problem.getStatus());
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), problem);
+        } catch (IOException e) {
+            log.debug("Unable to write rejected generation response: {}", e.getMessage());
+        }
+        return new ModelAndView();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private static long toSeconds(Duration duration) {
+        return Math.max(1, (duration.toMillis() + 999) / 1000);
+    }
+}
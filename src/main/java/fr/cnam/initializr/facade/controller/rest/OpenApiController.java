@@ -64,8 +64,12 @@ public class OpenApiController extends OpenApiWebMvcResource {
         openAPI = yamlMapper.readValue(openAPIResource.getInputStream(), OpenAPI.class);
     }
 
+    /**
+     * Pas de {@code synchronized} ici : le contrat est construit une seule fois au démarrage et n'est plus modifié,
+     * et une section synchronisée épinglerait les threads virtuels sur leur thread porteur.
+     */
     @Override
-    protected synchronized OpenAPI getOpenApi(Locale locale) {
+    protected OpenAPI getOpenApi(Locale locale) {
         return openAPI;
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package fr.cnam.initializr.facade.controller.rest;
+
+import fr.cnam.initializr.facade.business.model.GenerationCount;
+import fr.cnam.initializr.facade.business.model.StatisticsDimension;
+import fr.cnam.initializr.facade.business.model.StatisticsKey;
+import fr.cnam.initializr.facade.business.model.StatisticsQuery;
+import fr.cnam.initializr.facade.business.service.StatisticsService;
+import fr.cnam.initializr.facade.controller.rest.dto.GenerationCountRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Statistiques de génération calculées par la facade, par exemple le nombre de composants TONIC générés cette semaine
+ * avec une feature donnée, par DDS :
+ * {@code GET /statistics/generations?type-sk=TONIC&feature=toni-starter-jdbc&group-by=DDS}.
+ * <p>
+ * Sans période, les sept derniers jours sont retenus.
+ * <p>
+ * Les compteurs sont ceux de l'instance interrogée : chaque réplica ne compte que les générations qu'il a servies.
+ * <p>
+ * Ce point d'accès et son DTO ne sont pas générés depuis {@code openapi-facade.yml} : ce contrat est publié par le
+ * projet fainoa et ne peut être modifié ici. Ils devront y être reportés.
+ */
+@RestController
+@RequiredArgsConstructor
+public class StatisticsController {
+    private static final int DEFAULT_PERIOD_DAYS = 7;
+
+    private final StatisticsService statisticsService;
+
+    @GetMapping(path = "/statistics/generations", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<GenerationCountRow>> getGenerationStatistics(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "dds", required = false) String dds,
+            @RequestParam(name = "type-sk", required = false) String typeSK,
+            @RequestParam(name = "version-sk", required = false) String versionSK,
+            @RequestParam(name = "type-module", required = false) String typeModule,
+            @RequestParam(name = "feature", required = false) String feature,
+            @RequestParam(name = "group-by", required = false) List<StatisticsDimension> groupBy) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS - 1L);
+        StatisticsQuery query = new StatisticsQuery(start, end, dds, typeSK, versionSK, typeModule, feature,
+                groupBy == null || groupBy.isEmpty() ? EnumSet.noneOf(StatisticsDimension.class) : EnumSet.copyOf(groupBy));
+
+        List<GenerationCountRow> rows = statisticsService.query(query).stream()
+                .map(StatisticsController::toRow)
+                .toList();
+        return ResponseEntity.ok(rows);
+    }
+
+    private static GenerationCountRow toRow(GenerationCount count) {
+        StatisticsKey key = count.key();
+        return new GenerationCountRow(key.day(), key.dds(), key.typeSK(), key.versionSK(), key.typeModule(),
+                key.feature(), count.count());
+    }
+}
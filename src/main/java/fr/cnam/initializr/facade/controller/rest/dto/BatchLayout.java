@@ -0,0 +1,15 @@
+package fr.cnam.initializr.facade.controller.rest.dto;
+
+/**
+ * Organisation de l'archive renvoyée pour un lot.
+ */
+public enum BatchLayout {
+    /**
+     * Une archive ZIP par élément du lot, placées côte à côte dans l'archive renvoyée.
+     */
+    NESTED,
+    /**
+     * Le contenu de toutes les archives fusionné dans une seule, sous un répertoire par élément du lot.
+     */
+    MERGED
+}
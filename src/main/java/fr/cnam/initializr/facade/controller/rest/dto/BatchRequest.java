@@ -0,0 +1,20 @@
+package fr.cnam.initializr.facade.controller.rest.dto;
+
+import jakarta.validation.Valid;
+
+import java.util.List;
+
+/**
+ * Demande de génération d'un lot de composants et de contrats.
+ *
+ * @param components les composants à générer
+ * @param contracts  les contrats à générer
+ */
+public record BatchRequest(List<@Valid ComponentSpec> components,
+                           List<@Valid ContractSpec> contracts) {
+    /**
+     * Noms de produit et codes applicatifs admis dans un lot : ils deviennent des noms d'entrées de l'archive
+     * renvoyée et des segments de groupId / artifactId côté TONIC, d'où l'exclusion de « . », « / » et « \ ».
+     */
+    public static final String NAME_PATTERN = "[A-Za-z0-9][A-Za-z0-9_-]{0,63}";
+}
@@ -0,0 +1,17 @@
+package fr.cnam.initializr.facade.controller.rest.dto;
+
+import fr.cnam.initializr.facade.controller.rest.model.StarterKitType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.List;
+
+/**
+ * Composant à générer au sein d'un lot.
+ */
+public record ComponentSpec(@NotNull StarterKitType starterKit,
+                            @NotBlank @Pattern(regexp = BatchRequest.NAME_PATTERN) String productName,
+                            @NotBlank @Pattern(regexp = BatchRequest.NAME_PATTERN) String codeApplicatif,
+                            List<String> features) {
+}
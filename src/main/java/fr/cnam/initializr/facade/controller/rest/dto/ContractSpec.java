@@ -0,0 +1,16 @@
+package fr.cnam.initializr.facade.controller.rest.dto;
+
+import fr.cnam.initializr.facade.controller.rest.model.ContractType;
+import fr.cnam.initializr.facade.controller.rest.model.StarterKitType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Contrat à générer au sein d'un lot.
+ */
+public record ContractSpec(@NotNull StarterKitType starterKit,
+                           @NotNull ContractType contractType,
+                           @NotBlank @Pattern(regexp = BatchRequest.NAME_PATTERN) String productName,
+                           @NotBlank @Pattern(regexp = BatchRequest.NAME_PATTERN) String codeApplicatif) {
+}
@@ -0,0 +1,18 @@
+package fr.cnam.initializr.facade.controller.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne des statistiques de génération. Seules les dimensions de regroupement demandées sont renseignées.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GenerationCountRow(LocalDate day,
+                                 String dds,
+                                 String typeSK,
+                                 String versionSK,
+                                 String typeModule,
+                                 String feature,
+                                 long count) {
+}
@@ -0,0 +1,422 @@
+package fr.cnam.initializr.facade.provider.cache;
+
+import fr.cnam.initializr.facade.util.IoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache partagé porté par un répertoire commun aux réplicas, typiquement un volume monté par chacun d'eux.
+ * <p>
+ * Chaque entrée est un fichier nommé d'après l'empreinte SHA-256 de sa clé, dans le sous-répertoire de sa région.
+ * Le fichier porte la clé complète, vérifiée à la lecture, et sa date d'expiration. Il est écrit dans un fichier
+ * temporaire puis déplacé de manière atomique : un lecteur ne voit jamais une entrée partiellement écrite.
+ * <p>
+ * Un verrou est un fichier créé de manière exclusive, qui porte l'identifiant du réplica détenteur et la fin de son
+ * bail. Un verrou dont le bail est échu est supprimé par le prochain réplica qui le demande ; l'exclusion n'est donc
+ * garantie que tant que le détenteur termine son chargement dans le délai du bail. Pour ne jamais supprimer un verrou
+ * obtenu entre-temps par un autre réplica, un verrou est d'abord renommé de manière atomique en un fichier propre à
+ * l'appelant, puis vérifié sous ce nom avant d'être supprimé, ou remis en place s'il ne devait pas l'être.
+ * <p>
+ * Les modifications des régions suivies sont détectées en comparant périodiquement les dates de modification de
+ * leurs fichiers. Les entrées expirées sont supprimées au fil des lectures et par une purge horaire. Une région
+ * bornée par {@link #limit(String, long)} et modifiée depuis le dernier examen est ramenée sous sa taille maximale
+ * par la tâche de fond, en supprimant ses entrées les plus anciennes : l'écriture d'une entrée ne parcourt jamais le
+ * répertoire de sa région.
+ */
+@Slf4j
+public class DirectorySharedCache implements SharedCache, AutoCloseable {
+    private static final int MAGIC = 0x46534843;
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String LOCK_DIRECTORY = "locks";
+    private static final String TOMBSTONE_SUFFIX = ".tombstone";
+    private static final long PURGE_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final Path directory;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Map<Path, Long>> observedRegions = new ConcurrentHashMap<>();
+    private final Map<String, Long> regionLimits = new ConcurrentHashMap<>();
+    private final Set<String> regionsToEvict = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService poller =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("shared-cache-poller-"));
+    private long lastPurgeAt = System.currentTimeMillis();
+
+    public DirectorySharedCache(Path directory, Duration pollInterval) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        Files.createDirectories(this.directory.resolve(LOCK_DIRECTORY));
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Shared cache stored in {}, node {}", this.directory, nodeId);
+    }
+
+    @Override
+    public byte[] get(String region, String key) {
+        Path file = entryFile(region, key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring shared cache entry {} written in an unknown format", file);
+                return null;
+            }
+
+            long expiresAt = in.readLong();
+            byte[] storedKey = in.readNBytes(in.readInt());
+            if (!Arrays.equals(storedKey, key.getBytes(StandardCharsets.UTF_8))) {
+                return null;
+            }
+            if (expiresAt <= System.currentTimeMillis()) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            int length = in.readInt();
+            byte[] value = in.readNBytes(length);
+            return value.length == length ? value : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read shared cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String region, String key, byte[] value, Duration ttl) {
+        Path target = entryFile(region, key);
+        try {
+            IoUtils.writeAtomically(target, content -> {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(content))) {
+                    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeLong(System.currentTimeMillis() + ttl.toMillis());
+                    out.writeInt(keyBytes.length);
+                    out.write(keyBytes);
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            });
+            log.debug("Shared {} bytes in region {}", value.length, region);
+            if (regionLimits.containsKey(region)) {
+                regionsToEvict.add(region);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write shared cache entry {}: {}", target, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean tryLock(String name, Duration lease) {
+        Path file = lockFile(name);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE))) {
+                out.writeUTF(nodeId);
+                out.writeLong(System.currentTimeMillis() + lease.toMillis());
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                if (!deleteIfLeaseExpired(file, lease)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                log.warn("Unable to acquire shared lock {}, proceeding without it: {}", name, e.getMessage());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void unlock(String name) {
+        Path file = lockFile(name);
+        try {
+            LockOwner owner = readLock(file);
+            if (owner == null || !owner.nodeId().equals(nodeId)) {
+                return;
+            }
+            // Le verrou a pu expirer et être obtenu par un autre réplica depuis la lecture : seul le fichier renommé
+            // est vérifié puis supprimé
+            Path tombstone = moveToTombstone(file);
+            owner = readLock(tombstone);
+            if (owner != null && owner.nodeId().equals(nodeId)) {
+                Files.deleteIfExists(tombstone);
+            } else {
+                restore(tombstone, file);
+            }
+        } catch (NoSuchFileException e) {
+            log.debug("Shared lock {} already released", name);
+        } catch (IOException e) {
+            log.warn("Unable to release shared lock {}: {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void limit(String region, long maxBytes) {
+        regionLimits.put(region, maxBytes);
+    }
+
+    @Override
+    public void subscribe(String region, Runnable listener) {
+        observedRegions.computeIfAbsent(region, this::scanRegion);
+        listeners.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        poller.shutdownNow();
+        poller.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void poll() {
+        try {
+            List<String> modifiedRegions = new ArrayList<>();
+            observedRegions.replaceAll((region, previous) -> {
+                Map<Path, Long> current = scanRegion(region);
+                if (!current.equals(previous)) {
+                    modifiedRegions.add(region);
+                }
+                return current;
+            });
+            for (String region : modifiedRegions) {
+                log.debug("Shared cache region {} modified", region);
+                listeners.getOrDefault(region, List.of()).forEach(this::notifyListener);
+            }
+
+            for (String region : regionsToEvict) {
+                regionsToEvict.remove(region);
+                evictBeyond(region, regionLimits.get(region));
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastPurgeAt >= PURGE_INTERVAL_MILLIS) {
+                lastPurgeAt = now;
+                purgeExpired();
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to poll shared cache {}: {}", directory, e.getMessage(), e);
+        }
+    }
+
+    private void notifyListener(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            log.error("Shared cache listener failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private Map<Path, Long> scanRegion(String region) {
+        Map<Path, Long> modifications = new HashMap<>();
+        Path regionDirectory = directory.resolve(region);
+        if (!Files.isDirectory(regionDirectory)) {
+            return modifications;
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(regionDirectory, "*" + ENTRY_SUFFIX)) {
+            for (Path entry : entries) {
+                try {
+                    modifications.put(entry.getFileName(), Files.getLastModifiedTime(entry).toMillis());
+                } catch (NoSuchFileException e) {
+                    // Entrée supprimée pendant le parcours
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to scan shared cache region {}: {}", regionDirectory, e.getMessage());
+        }
+        return modifications;
+    }
+
+    private void purgeExpired() {
+        int purged = 0;
+        try (DirectoryStream<Path> regions = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path region : regions) {
+                if (region.getFileName().toString().equals(LOCK_DIRECTORY)) {
+                    purgeTombstones(region);
+                    continue;
+                }
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(region, "*" + ENTRY_SUFFIX)) {
+                    for (Path entry : entries) {
+                        if (isExpired(entry) && Files.deleteIfExists(entry)) {
+                            purged++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to purge shared cache {}: {}", directory, e.getMessage());
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired shared cache entries", purged);
+        }
+    }
+
+    /**
+     * Supprime les verrous renommés et abandonnés par un réplica arrêté avant de les supprimer ou de les remettre en
+     * place.
+     */
+    private static void purgeTombstones(Path lockDirectory) throws IOException {
+        long threshold = System.currentTimeMillis() - PURGE_INTERVAL_MILLIS;
+        try (DirectoryStream<Path> tombstones = Files.newDirectoryStream(lockDirectory, "*" + TOMBSTONE_SUFFIX)) {
+            for (Path tombstone : tombstones) {
+                try {
+                    if (Files.getLastModifiedTime(tombstone).toMillis() < threshold) {
+                        Files.deleteIfExists(tombstone);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Verrou supprimé pendant le parcours
+                }
+            }
+        }
+    }
+
+    /**
+     * Supprime les entrées les plus anciennes d'une région jusqu'à ce que sa taille ne dépasse plus la limite.
+     * Plusieurs réplicas peuvent évincer simultanément : la région peut alors descendre sous la limite.
+     */
+    private void evictBeyond(String region, long maxBytes) {
+        List<StoredEntry> entries = new ArrayList<>();
+        long totalBytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory.resolve(region), "*" + ENTRY_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.add(new StoredEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    totalBytes += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // Entrée supprimée pendant le parcours
+                }
+            }
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+
+            entries.sort(Comparator.comparingLong(StoredEntry::modifiedAt));
+            int evicted = 0;
+            for (StoredEntry entry : entries) {
+                if (totalBytes <= maxBytes) {
+                    break;
+                }
+                if (Files.deleteIfExists(entry.file())) {
+                    evicted++;
+                }
+                totalBytes -= entry.size();
+            }
+            log.debug("Evicted {} entries from shared cache region {}, {} bytes left", evicted, region, totalBytes);
+        } catch (IOException e) {
+            log.warn("Unable to evict from shared cache region {}: {}", region, e.getMessage());
+        }
+    }
+
+    private static boolean isExpired(Path entry) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry), 16))) {
+            return in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() <= System.currentTimeMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean deleteIfLeaseExpired(Path file, Duration lease) {
+        try {
+            if (!isLeaseExpired(file, lease)) {
+                return false;
+            }
+            // Un autre réplica a pu casser ce verrou et en obtenir un nouveau depuis la lecture : le bail est vérifié
+            // de nouveau sur le fichier renommé, que lui seul peut supprimer
+            Path tombstone = moveToTombstone(file);
+            if (!isLeaseExpired(tombstone, lease)) {
+                restore(tombstone, file);
+                return false;
+            }
+            LockOwner owner = readLock(tombstone);
+            log.info("Shared lock {} held by {} expired, breaking it", file.getFileName(),
+                    owner != null ? owner.nodeId() : "an unknown node");
+            Files.deleteIfExists(tombstone);
+            return true;
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to inspect shared lock {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Un verrou illisible est en cours d'écriture, ou abandonné s'il est plus ancien que le bail.
+     */
+    private static boolean isLeaseExpired(Path file, Duration lease) throws IOException {
+        LockOwner owner = readLock(file);
+        return owner != null
+                ? owner.expiresAt() <= System.currentTimeMillis()
+                : Files.getLastModifiedTime(file).toMillis() + lease.toMillis() <= System.currentTimeMillis();
+    }
+
+    private static Path moveToTombstone(Path file) throws IOException {
+        Path tombstone = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TOMBSTONE_SUFFIX);
+        return Files.move(file, tombstone, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remet en place un verrou renommé à tort. Si un autre réplica a obtenu le verrou entre-temps, c'est le sien qui
+     * est conservé.
+     */
+    private static void restore(Path tombstone, Path file) throws IOException {
+        try {
+            // Sans remplacement : un déplacement atomique pourrait écraser le verrou d'un autre réplica
+            Files.move(tombstone, file);
+        } catch (FileAlreadyExistsException e) {
+            log.warn("Shared lock {} was acquired while being checked, keeping the newest one", file.getFileName());
+            Files.deleteIfExists(tombstone);
+        }
+    }
+
+    private static LockOwner readLock(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return new LockOwner(in.readUTF(), in.readLong());
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path entryFile(String region, String key) {
+        return directory.resolve(region).resolve(IoUtils.sha256(key) + ENTRY_SUFFIX);
+    }
+
+    private Path lockFile(String name) {
+        return directory.resolve(LOCK_DIRECTORY).resolve(IoUtils.sha256(name) + ".lock");
+    }
+
+    private record LockOwner(String nodeId, long expiresAt) {
+    }
+
+    private record StoredEntry(Path file, long size, long modifiedAt) {
+    }
+}
@@ -0,0 +1,39 @@
+package fr.cnam.initializr.facade.provider.cache;
+
+import java.time.Duration;
+
+/**
+ * Absence de cache partagé : chaque réplica ne compte que sur ses propres caches.
+ */
+public class NoOpSharedCache implements SharedCache {
+
+    @Override
+    public byte[] get(String region, String key) {
+        return null;
+    }
+
+    @Override
+    public void put(String region, String key, byte[] value, Duration ttl) {
+        // Rien à partager
+    }
+
+    @Override
+    public boolean tryLock(String name, Duration lease) {
+        return true;
+    }
+
+    @Override
+    public void unlock(String name) {
+        // Verrou purement local, toujours obtenu
+    }
+
+    @Override
+    public void subscribe(String region, Runnable listener) {
+        // Aucune modification ne provient d'un autre réplica
+    }
+
+    @Override
+    public void limit(String region, long maxBytes) {
+        // Aucune entrée n'est conservée
+    }
+}
@@ -0,0 +1,45 @@
+package fr.cnam.initializr.facade.provider.cache;
+
+import java.time.Duration;
+
+/**
+ * Cache de second niveau partagé par les réplicas de la facade.
+ * <p>
+ * Chaque réplica conserve ses propres caches en mémoire ; ce cache partagé permet de réutiliser ce qu'un autre réplica
+ * a déjà obtenu du service amont. Les entrées sont des octets opaques, rangés par région. Les implémentations doivent
+ * tolérer les accès concurrents de plusieurs processus et ne jamais propager d'erreur d'accès au support partagé :
+ * une entrée illisible est traitée comme absente.
+ */
+public interface SharedCache {
+
+    /**
+     * @return le contenu de l'entrée, ou {@code null} si elle est absente ou expirée
+     */
+    byte[] get(String region, String key);
+
+    /**
+     * Enregistre une entrée, qui expire après la durée donnée.
+     */
+    void put(String region, String key, byte[] value, Duration ttl);
+
+    /**
+     * Tente d'obtenir un verrou partagé, afin qu'un seul réplica exécute un chargement coûteux. Le verrou est libéré
+     * par {@link #unlock(String)} ou, si son détenteur disparaît, à l'expiration du bail.
+     *
+     * @return {@code true} si le verrou a été obtenu
+     */
+    boolean tryLock(String name, Duration lease);
+
+    void unlock(String name);
+
+    /**
+     * Enregistre un écouteur prévenu lorsqu'une entrée de la région a été modifiée ou supprimée, par ce réplica
+     * ou par un autre. C'est par ce biais qu'une donnée rechargée par un réplica invalide la copie des autres.
+     */
+    void subscribe(String region, Runnable listener);
+
+    /**
+     * Borne la taille totale des entrées d'une région : au-delà, les entrées les plus anciennes sont supprimées.
+     */
+    void limit(String region, long maxBytes);
+}
@@ -0,0 +1,210 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Limite adaptative du nombre d'appels simultanés vers un service amont, selon un algorithme de gradient.
+ * <p>
+ * La latence de chaque appel réussi alimente une moyenne mobile, qui suit la latence actuelle, et un minimum,
+ * qui sert de référence : la latence du service amont hors charge. Tant que la latence actuelle reste dans la
+ * tolérance de la référence, la limite croît ; dès que le service amont ralentit, le gradient
+ * {@code référence / actuelle} passe sous 1 et la limite diminue proportionnellement. La référence est recalculée
+ * par fenêtres d'appels, afin de suivre une évolution durable de la latence du service amont.
+ * Un appel signalant une surcharge du service amont, expiré ou en erreur 5xx, réduit la limite d'un facteur fixe ;
+ * les autres échecs (erreur 4xx, appel refusé sans avoir été tenté) ne renseignent pas sur sa capacité et sont ignorés.
+ * <p>
+ * Au-delà de la limite, l'appel est refusé immédiatement par une {@link GenerationRejectedException}
+ * au lieu d'attendre : sous surcharge, les appels acceptés conservent une latence stable.
+ * Contrairement à l'{@link UpstreamBulkhead}, qui borne la pression maximale, cette limite suit la capacité
+ * réelle du service amont. Une limite plafond négative ou nulle désactive le contrôle.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+    private static final double RTT_WEIGHT = 0.1;
+    private static final int BASELINE_WINDOW = 1000;
+    private static final double BASELINE_WEIGHT = 0.1;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final String upstream;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final Duration minRetryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile double limit;
+    private double rttNanos;
+    private long baselineRttNanos;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastUpdateNanos;
+
+    /**
+     * @param upstream      nom du service amont, pour les journaux
+     * @param initialLimit  limite initiale
+     * @param minLimit      limite plancher
+     * @param maxLimit      limite plafond
+     * @param tolerance     ralentissement toléré avant réduction de la limite, par exemple 1.5 pour +50 %
+     * @param smoothing     poids de chaque nouvelle estimation dans la limite, entre 0 et 1
+     * @param minRetryAfter délai minimal conseillé au client avant de renouveler une demande refusée
+     */
+    public AdaptiveConcurrencyLimiter(String upstream, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, Duration minRetryAfter) {
+        this.upstream = upstream;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.minRetryAfter = minRetryAfter;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Exécute l'appel si la limite courante le permet.
+     *
+     * @param call l'appel au service amont
+     * @return le résultat de l'appel
+     * @throws GenerationRejectedException si la limite est atteinte
+     */
+    public <T> T call(Supplier<T> call) {
+        if (maxLimit <= 0) {
+            return call.get();
+        }
+
+        int currentInFlight = acquire();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onSuccess(System.nanoTime() - start, currentInFlight);
+            return result;
+        } catch (RuntimeException e) {
+            if (isOverload(e)) {
+                onFailure();
+            }
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private int acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCount.increment();
+                log.debug("Concurrency limit of {} reached for {}, rejecting call", (int) limit, upstream);
+                throw new GenerationRejectedException(
+                        "Too many concurrent generations in progress on " + upstream + ", please retry later",
+                        retryAfter());
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void onSuccess(long sampleNanos, int currentInFlight) {
+        sampleLock.lock();
+        try {
+            long sample = Math.max(1, sampleNanos);
+            rttNanos = rttNanos == 0 ? sample : rttNanos + (sample - rttNanos) * RTT_WEIGHT;
+            if (baselineRttNanos == 0 || sample < baselineRttNanos) {
+                baselineRttNanos = sample;
+            }
+            windowMinRttNanos = Math.min(windowMinRttNanos, sample);
+            if (++windowSamples >= BASELINE_WINDOW) {
+                // La référence ne remonte que progressivement : sous charge, le minimum d'une fenêtre est lui-même dégradé
+                baselineRttNanos += (long) ((windowMinRttNanos - baselineRttNanos) * BASELINE_WEIGHT);
+                windowMinRttNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+
+            // Sans pression suffisante, la latence observée ne renseigne pas sur la capacité : la limite ne croît pas
+            if (currentInFlight < limit / 2) {
+                return;
+            }
+
+            // Une seule mise à jour par temps d'aller-retour : l'effet d'un changement de limite doit être observé
+            // avant le suivant, sans quoi la limite oscille
+            long now = System.nanoTime();
+            if (now - lastUpdateNanos < rttNanos) {
+                return;
+            }
+            lastUpdateNanos = now;
+
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineRttNanos / rttNanos));
+            double queueSize = Math.max(1, Math.log10(limit));
+            double estimated = limit * gradient + queueSize;
+            updateLimit(limit * (1 - smoothing) + estimated * smoothing);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void onFailure() {
+        sampleLock.lock();
+        try {
+            updateLimit(limit * FAILURE_BACKOFF);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} si l'exception, ou l'une de ses causes, est une expiration ou une réponse 5xx
+     */
+    static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof GenerationRejectedException) {
+                return false;
+            }
+            if (cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException
+                    || cause instanceof TimeoutException
+                    || cause instanceof RestClientResponseException response && response.getStatusCode().is5xxServerError()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateLimit(double newLimit) {
+        double bounded = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        if ((int) bounded != (int) limit) {
+            log.debug("Concurrency limit for {} changed from {} to {}", upstream, (int) limit, (int) bounded);
+        }
+        limit = bounded;
+    }
+
+    private Duration retryAfter() {
+        Duration observed = Duration.ofNanos((long) rttNanos);
+        return observed.compareTo(minRetryAfter) > 0 ? observed : minRetryAfter;
+    }
+}
@@ -0,0 +1,228 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Disjoncteur protégeant une opération d'un service amont.
+ * <p>
+ * Fermé, il laisse passer les appels et mesure leur taux d'échec sur une fenêtre glissante des derniers appels.
+ * Au-delà du seuil, il s'ouvre : les appels sont alors refusés immédiatement par une
+ * {@link GenerationRejectedException}, sans solliciter le service amont, pendant la durée d'ouverture. Le client
+ * reçoit alors une réponse 503, distincte de l'erreur renvoyée pour un échec du service amont.
+ * Il passe ensuite à l'état semi-ouvert et laisse passer quelques appels de test : s'ils réussissent tous,
+ * il se referme, sinon il se rouvre.
+ * <p>
+ * Seuls les échecs imputables au service amont sont comptés : les erreurs de validation, les réponses 4xx du service
+ * amont et les refus de la facade elle-même ({@link GenerationRejectedException}, levée notamment par la limite
+ * adaptative de concurrence et par l'{@link UpstreamBulkhead}) ne le sont pas.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomeIndex;
+    private int failureCount;
+    private volatile State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * @param name                 nom de l'opération protégée, pour les journaux et les métriques
+     * @param windowSize           nombre de derniers appels sur lequel le taux d'échec est mesuré
+     * @param minimumCalls         nombre minimal d'appels dans la fenêtre avant de pouvoir ouvrir le disjoncteur
+     * @param failureRateThreshold taux d'échec, entre 0 et 1, à partir duquel le disjoncteur s'ouvre
+     * @param openDuration         durée pendant laquelle les appels sont refusés avant un nouvel essai
+     * @param halfOpenCalls        nombre d'appels de test autorisés à l'état semi-ouvert
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * Exécute l'appel si le disjoncteur le permet.
+     *
+     * @param call l'appel au service amont
+     * @return le résultat de l'appel
+     * @throws GenerationRejectedException si le disjoncteur est ouvert
+     */
+    public <T> T call(Supplier<T> call) {
+        acquirePermission();
+        try {
+            T result = call.get();
+            onResult(true);
+            return result;
+        } catch (RuntimeException e) {
+            if (isRejection(e)) {
+                onRejected();
+            } else {
+                onResult(!isFailure(e));
+            }
+            throw e;
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return currentState(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void acquirePermission() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            switch (currentState(now)) {
+                case CLOSED -> {
+                    // Appel autorisé
+                }
+                case OPEN -> throw rejection(openDuration.minusNanos(now - openedAtNanos));
+                case HALF_OPEN -> {
+                    if (halfOpenPermits == 0) {
+                        throw rejection(openDuration);
+                    }
+                    halfOpenPermits--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onResult(boolean success) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> record(success);
+                case HALF_OPEN -> {
+                    if (!success) {
+                        open("trial call failed");
+                    } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                        close();
+                    }
+                }
+                case OPEN -> {
+                    // Résultat d'un appel commencé avant l'ouverture : sans effet
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Un appel refusé en aval par la facade n'a pas sollicité le service amont : il n'est compté ni comme un succès
+     * ni comme un échec, et rend son permis d'appel de test.
+     */
+    private void onRejected() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+                halfOpenPermits++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean success) {
+        if (outcomeCount == outcomes.length) {
+            if (!outcomes[outcomeIndex]) {
+                failureCount--;
+            }
+        } else {
+            outcomeCount++;
+        }
+        outcomes[outcomeIndex] = success;
+        if (!success) {
+            failureCount++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+
+        if (outcomeCount >= minimumCalls && (double) failureCount / outcomeCount >= failureRateThreshold) {
+            open(String.format("%d failures in the last %d calls", failureCount, outcomeCount));
+        }
+    }
+
+    private State currentState(long now) {
+        if (state == State.OPEN && now - openedAtNanos >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+            log.info("Circuit breaker {} half-open, probing with {} calls", name, halfOpenCalls);
+        }
+        return state;
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+        log.warn("Circuit breaker {} opened for {}: {}", name, openDuration, reason);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        outcomeCount = 0;
+        outcomeIndex = 0;
+        failureCount = 0;
+        log.info("Circuit breaker {} closed", name);
+    }
+
+    private GenerationRejectedException rejection(Duration retryAfter) {
+        return new GenerationRejectedException(
+                "Upstream operation " + name + " is currently unavailable, please retry later", retryAfter);
+    }
+
+    private static boolean isRejection(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof GenerationRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFailure(RuntimeException e) {
+        if (e instanceof ClientException) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
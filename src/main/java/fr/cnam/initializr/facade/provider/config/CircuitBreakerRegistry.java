@@ -0,0 +1,61 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Disjoncteurs des opérations des services amont, un par opération et partageant la même configuration.
+ * L'état de chaque disjoncteur est exposé par la jauge {@code fainj.circuit.state}
+ * (0 : fermé, 1 : semi-ouvert, 2 : ouvert).
+ */
+@Component
+@RequiredArgsConstructor
+public class CircuitBreakerRegistry {
+    private final FacadeMetrics metrics;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Value("${initializer.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${initializer.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${initializer.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${initializer.circuit-breaker.open-duration:30000}")
+    private long openDuration;
+
+    @Value("${initializer.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * @param operation l'opération protégée, par exemple {@code tonic.generate}
+     * @return le disjoncteur de l'opération, créé au premier appel
+     */
+    public CircuitBreaker get(String operation) {
+        return circuitBreakers.computeIfAbsent(operation, this::create);
+    }
+
+    private CircuitBreaker create(String operation) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(operation,
+                windowSize,
+                minimumCalls,
+                failureRateThreshold,
+                Duration.ofMillis(openDuration),
+                halfOpenCalls);
+        metrics.registerGauge("fainj.circuit.state", "State of the upstream circuit breakers (0 closed, 1 half-open, 2 open)",
+                circuitBreaker, breaker -> switch (breaker.getState()) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 1;
+                    case OPEN -> 2;
+                }, "operation", operation);
+        return circuitBreaker;
+    }
+}
@@ -4,16 +4,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.cnam.initializr.facade.business.port.MetricProvider;
 import fr.cnam.initializr.facade.client.metric.controller.rest.api.ModuleApi;
 import fr.cnam.initializr.facade.client.metric.controller.rest.invoker.ApiClient;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
 import fr.cnam.initializr.facade.provider.mapper.MetricMapper;
 import fr.cnam.initializr.facade.provider.metric.ApiMetricProvider;
+import fr.cnam.initializr.facade.provider.metric.AsyncMetricProvider;
+import fr.cnam.initializr.facade.provider.metric.MetricSpool;
 import fr.cnam.initializr.facade.provider.metric.NoOpMetricProvider;
+import fr.cnam.initializr.facade.provider.metric.SpoolingMetricProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.DateFormat;
+import java.time.Duration;
 
 @Configuration
 @Slf4j
@@ -22,13 +32,92 @@ public class MetricClientConfig {
     @Value("${initializer.metric.url}")
     private String metricServiceUrl;
 
+    @Value("${initializer.metric.http.max-connections:10}")
+    private int maxConnections;
+
+    @Value("${initializer.metric.http.connect-timeout:1000}")
+    private long connectTimeout;
+
+    @Value("${initializer.metric.http.read-timeout:5000}")
+    private long readTimeout;
+
+    @Value("${initializer.metric.http.connection-request-timeout:1000}")
+    private long connectionRequestTimeout;
+
+    @Value("${initializer.metric.http.keep-alive:60000}")
+    private long keepAlive;
+
+    @Value("${initializer.metric.http.http2:false}")
+    private boolean http2;
+
+    @Value("${initializer.metric.bulkhead.max-concurrent-calls:${initializer.metric.http.max-connections:10}}")
+    private int maxConcurrentCalls;
+
+    @Value("${initializer.metric.bulkhead.acquire-timeout:5000}")
+    private long acquireTimeout;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${initializer.metric.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${initializer.metric.async.queue-capacity:10000}")
+    private int asyncQueueCapacity;
+
+    @Value("${initializer.metric.async.senders:2}")
+    private int asyncSenders;
+
+    @Value("${initializer.metric.async.batch-size:50}")
+    private int asyncBatchSize;
+
+    @Value("${initializer.metric.async.overflow-policy:DROP}")
+    private AsyncMetricProvider.OverflowPolicy asyncOverflowPolicy;
+
+    @Value("${initializer.metric.async.shutdown-timeout:10000}")
+    private long asyncShutdownTimeout;
+
+    @Value("${initializer.metric.spool.enabled:true}")
+    private boolean spoolEnabled;
+
+    @Value("${initializer.metric.spool.directory:${initializer.data-dir:${java.io.tmpdir}/fainj}/metrics}")
+    private Path spoolDirectory;
+
+    @Value("${initializer.metric.spool.segment-size:4194304}")
+    private long spoolSegmentSize;
+
+    @Value("${initializer.metric.spool.max-size:268435456}")
+    private long spoolMaxSize;
+
+    @Value("${initializer.metric.spool.replay-interval:5000}")
+    private long spoolReplayInterval;
+
+    @Value("${initializer.metric.spool.replay-batch-size:100}")
+    private int spoolReplayBatchSize;
+
+    @Bean
+    @ConditionalOnProperty(name = "initializer.metric.mock", havingValue = "false", matchIfMissing = true)
+    public ClientHttpRequestFactory metricRequestFactory() {
+        return UpstreamRequestFactories.create("metric service", new UpstreamHttpSettings(
+                maxConnections,
+                Duration.ofMillis(connectTimeout),
+                Duration.ofMillis(readTimeout),
+                Duration.ofMillis(connectionRequestTimeout),
+                Duration.ofMillis(keepAlive),
+                http2));
+    }
+
     @Bean
     @ConditionalOnProperty(name = "initializer.metric.mock", havingValue = "false", matchIfMissing = true)
     public ModuleApi moduleApi(ObjectMapper objectMapper) {
         log.info("Configuring ModuleApi with metric service URL: {}", metricServiceUrl);
 
+        // Même client que celui construit par ApiClient(objectMapper, dateFormat), sur le pool de connexions configuré
         DateFormat dateFormat = ApiClient.createDefaultDateFormat();
-        ApiClient apiClient = new ApiClient(objectMapper, dateFormat);
+        RestClient restClient = ApiClient.buildRestClientBuilder(objectMapper.copy())
+                .requestFactory(metricRequestFactory())
+                .build();
+        ApiClient apiClient = new ApiClient(restClient, objectMapper, dateFormat);
         apiClient.setBasePath(metricServiceUrl);
 
         ModuleApi moduleApi = new ModuleApi(apiClient);
@@ -39,8 +128,51 @@ public class MetricClientConfig {
 
     @Bean
     @ConditionalOnProperty(name = "initializer.metric.mock", havingValue = "false", matchIfMissing = true)
-    public MetricProvider metricProvider(ModuleApi moduleApi, MetricMapper metricMapper) {
-        return new ApiMetricProvider(moduleApi, metricMapper);
+    public MetricProvider metricProvider(ModuleApi moduleApi, MetricMapper metricMapper, FacadeMetrics metrics) throws IOException {
+        UpstreamBulkhead.warnIfAbovePool("metric service", maxConcurrentCalls, maxConnections, http2);
+        UpstreamBulkhead bulkhead = new UpstreamBulkhead("metric service", maxConcurrentCalls, Duration.ofMillis(acquireTimeout));
+        MetricProvider apiMetricProvider = new ApiMetricProvider(moduleApi, metricMapper, bulkhead, metrics);
+        SpoolingMetricProvider spoolingMetricProvider = spoolEnabled ? spoolingMetricProvider(apiMetricProvider, metrics) : null;
+        MetricProvider deliveringMetricProvider = spoolingMetricProvider != null ? spoolingMetricProvider : apiMetricProvider;
+        if (!asyncEnabled) {
+            return deliveringMetricProvider;
+        }
+
+        SimpleAsyncTaskExecutor senderExecutor = new SimpleAsyncTaskExecutor("metric-sender-");
+        senderExecutor.setVirtualThreads(virtualThreads);
+        AsyncMetricProvider asyncMetricProvider = new AsyncMetricProvider(deliveringMetricProvider,
+                senderExecutor,
+                asyncQueueCapacity,
+                asyncSenders,
+                asyncBatchSize,
+                asyncOverflowPolicy,
+                spoolingMetricProvider != null ? spoolingMetricProvider::spool : null,
+                Duration.ofMillis(asyncShutdownTimeout));
+        metrics.registerGauge("fainj.metric.queue.size", "Metrics waiting to be sent to the metric service",
+                asyncMetricProvider, AsyncMetricProvider::getPendingCount);
+        metrics.registerCounter("fainj.metric.dropped", "Metrics dropped because the send queue was full",
+                asyncMetricProvider, AsyncMetricProvider::getDroppedCount);
+        return asyncMetricProvider;
+    }
+
+    private SpoolingMetricProvider spoolingMetricProvider(MetricProvider apiMetricProvider, FacadeMetrics metrics) throws IOException {
+        MetricSpool spool = MetricSpool.open(spoolDirectory, spoolSegmentSize, spoolMaxSize);
+        metrics.registerGauge("fainj.metric.spool.pending", "Metrics spooled to disk waiting to be replayed",
+                spool, MetricSpool::getPendingCount);
+        metrics.registerGauge("fainj.metric.spool.size", "Bytes of metrics spooled to disk",
+                spool, MetricSpool::getSpooledBytes);
+        metrics.registerCounter("fainj.metric.spool.dropped", "Metrics dropped because the metric spool was full",
+                spool, MetricSpool::getDroppedCount);
+
+        SimpleAsyncTaskExecutor replayExecutor = new SimpleAsyncTaskExecutor("metric-replayer-");
+        replayExecutor.setVirtualThreads(virtualThreads);
+        log.info("Spooling unsent metrics to {}", spoolDirectory);
+        return new SpoolingMetricProvider(apiMetricProvider,
+                spool,
+                replayExecutor,
+                spoolReplayBatchSize,
+                Duration.ofMillis(spoolReplayInterval),
+                Duration.ofMillis(asyncShutdownTimeout));
     }
 
 
@@ -2,37 +2,131 @@ package fr.cnam.initializr.facade.provider.config;
 
 import fr.cnam.client.tonic.controller.rest.api.TonicProjectGenerationControllerApi;
 import fr.cnam.client.tonic.controller.rest.invoker.ApiClient;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.tonic.TonicArchiveHttpMessageConverter;
+import fr.cnam.initializr.facade.provider.tonic.TonicArchiveSpool;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.util.Arrays;
 
+@Slf4j
 @Configuration
 public class TonicProviderConfig {
 
     @Value("${initializer.tonic.url}")
     private String tonicUrl;
 
+    @Value("${initializer.tonic.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${initializer.tonic.http.connect-timeout:2000}")
+    private long connectTimeout;
+
+    @Value("${initializer.tonic.http.read-timeout:30000}")
+    private long readTimeout;
+
+    @Value("${initializer.tonic.http.connection-request-timeout:2000}")
+    private long connectionRequestTimeout;
+
+    @Value("${initializer.tonic.http.keep-alive:60000}")
+    private long keepAlive;
+
+    @Value("${initializer.tonic.http.http2:false}")
+    private boolean http2;
+
+    @Value("${initializer.tonic.bulkhead.max-concurrent-calls:${initializer.tonic.http.max-connections:50}}")
+    private int maxConcurrentCalls;
+
+    @Value("${initializer.tonic.bulkhead.acquire-timeout:5000}")
+    private long acquireTimeout;
+
+    @Value("${initializer.tonic.concurrency-limit.initial-limit:20}")
+    private int initialConcurrencyLimit;
+
+    @Value("${initializer.tonic.concurrency-limit.min-limit:4}")
+    private int minConcurrencyLimit;
+
+    @Value("${initializer.tonic.concurrency-limit.max-limit:200}")
+    private int maxConcurrencyLimit;
+
+    @Value("${initializer.tonic.concurrency-limit.tolerance:1.5}")
+    private double concurrencyLimitTolerance;
+
+    @Value("${initializer.tonic.concurrency-limit.smoothing:0.2}")
+    private double concurrencyLimitSmoothing;
+
+    @Value("${initializer.tonic.concurrency-limit.min-retry-after:1000}")
+    private long minRetryAfter;
+
+    @Bean
+    public AdaptiveConcurrencyLimiter tonicConcurrencyLimiter(FacadeMetrics metrics) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("TONIC",
+                initialConcurrencyLimit,
+                minConcurrencyLimit,
+                maxConcurrencyLimit,
+                concurrencyLimitTolerance,
+                concurrencyLimitSmoothing,
+                Duration.ofMillis(minRetryAfter));
+        metrics.registerGauge("fainj.tonic.concurrency.limit", "Current adaptive concurrency limit for TONIC generations",
+                limiter, AdaptiveConcurrencyLimiter::getLimit);
+        metrics.registerGauge("fainj.tonic.concurrency.in-flight", "TONIC generations in progress",
+                limiter, AdaptiveConcurrencyLimiter::getInFlight);
+        metrics.registerCounter("fainj.tonic.concurrency.rejected", "TONIC generations rejected by the concurrency limit",
+                limiter, AdaptiveConcurrencyLimiter::getRejectedCount);
+        return limiter;
+    }
+
+    @Bean
+    public UpstreamBulkhead tonicBulkhead() {
+        UpstreamBulkhead.warnIfAbovePool("TONIC", maxConcurrentCalls, maxConnections, http2);
+        return new UpstreamBulkhead("TONIC", maxConcurrentCalls, Duration.ofMillis(acquireTimeout));
+    }
+
+    @Bean
+    public ClientHttpRequestFactory tonicRequestFactory() {
+        return UpstreamRequestFactories.create("TONIC", new UpstreamHttpSettings(
+                maxConnections,
+                Duration.ofMillis(connectTimeout),
+                Duration.ofMillis(readTimeout),
+                Duration.ofMillis(connectionRequestTimeout),
+                Duration.ofMillis(keepAlive),
+                http2));
+    }
+
     @Bean
-    public TonicProjectGenerationControllerApi tonicApi() {
+    public RestClient tonicRestClient() {
         ByteArrayHttpMessageConverter byteArrayConverter = new ByteArrayHttpMessageConverter();
         byteArrayConverter.setSupportedMediaTypes(Arrays.asList(
                 MediaType.APPLICATION_OCTET_STREAM,
                 MediaType.parseMediaType("application/zip")
         ));
 
-        RestClient restClient = RestClient.builder()
+        return RestClient.builder()
                 .baseUrl(tonicUrl)
+                .requestFactory(tonicRequestFactory())
                 .messageConverters(converters -> converters.add(0, byteArrayConverter))
                 .build();
+    }
 
-        ApiClient apiClient = new ApiClient(restClient);
+    /**
+     * Client TONIC généré, utilisé pour télécharger les archives : elles sont lues par le
+     * {@link TonicArchiveHttpMessageConverter}, en mémoire ou sur disque selon leur taille.
+     */
+    @Bean
+    public TonicProjectGenerationControllerApi tonicApi(RestClient tonicRestClient, TonicArchiveSpool archiveSpool) {
+        ApiClient apiClient = new ApiClient(tonicRestClient.mutate()
+                .messageConverters(converters -> converters.add(0, new TonicArchiveHttpMessageConverter(archiveSpool)))
+                .build());
         apiClient.setBasePath(tonicUrl);
 
         return new TonicProjectGenerationControllerApi(apiClient);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
+import fr.cnam.toni.starter.core.exceptions.ServiceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limite le nombre d'appels simultanés vers un service amont.
+ * <p>
+ * La limite repose sur un {@link Semaphore} et non sur des sections {@code synchronized} : un thread virtuel
+ * en attente d'un permis libère son thread porteur. Elle borne ainsi la pression exercée sur le service amont
+ * lorsque les requêtes sont servies par des threads virtuels, dont le nombre n'est plus limité par un pool.
+ * Le sémaphore est équitable : les permis sont attribués dans l'ordre d'arrivée des appelants.
+ * <p>
+ * La limite doit rester inférieure ou égale à la taille du pool de connexions vers le service amont : au-delà,
+ * les appels excédentaires attendent une connexion dans le pool, sans délai maîtrisé par la facade, au lieu d'être
+ * refusés ici. Une limite négative ou nulle désactive le contrôle.
+ */
+@Slf4j
+public class UpstreamBulkhead {
+    private final String upstream;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public UpstreamBulkhead(String upstream, int maxConcurrentCalls, Duration acquireTimeout) {
+        this.upstream = upstream;
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls, true) : null;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Signale une limite supérieure au pool de connexions HTTP/1.1, dont les appels excédentaires attendraient
+     * une connexion au lieu d'être refusés. En HTTP/2, les appels sont multiplexés et le pool ne les borne pas.
+     */
+    public static void warnIfAbovePool(String upstream, int maxConcurrentCalls, int maxConnections, boolean http2) {
+        if (!http2 && (maxConcurrentCalls <= 0 || maxConcurrentCalls > maxConnections)) {
+            log.warn("{} bulkhead allows {} concurrent calls but the connection pool holds {}: excess calls will queue in the pool",
+                    upstream, maxConcurrentCalls <= 0 ? "unlimited" : maxConcurrentCalls, maxConnections);
+        }
+    }
+
+    /**
+     * Exécute un appel vers le service amont dès qu'un permis est disponible.
+     *
+     * @param call l'appel à exécuter
+     * @return le résultat de l'appel
+     * @throws GenerationRejectedException si aucun permis n'a pu être obtenu dans le délai imparti
+     */
+    public <T> T call(Supplier<T> call) {
+        if (permits == null) {
+            return call.get();
+        }
+
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Too many concurrent calls to {}, no permit obtained within {}", upstream, acquireTimeout);
+                throw new GenerationRejectedException("Too many concurrent calls to " + upstream, acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
+        }
+    }
+}
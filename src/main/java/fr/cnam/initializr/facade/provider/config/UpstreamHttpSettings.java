@@ -0,0 +1,21 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import java.time.Duration;
+
+/**
+ * Réglages de la couche HTTP utilisée pour appeler un service amont.
+ *
+ * @param maxConnections           nombre maximal de connexions simultanées vers le service
+ * @param connectTimeout           délai maximal d'établissement d'une connexion
+ * @param readTimeout              délai maximal d'attente de la réponse
+ * @param connectionRequestTimeout délai maximal d'attente d'une connexion libre dans le pool
+ * @param keepAlive                durée de conservation d'une connexion inactive dans le pool
+ * @param http2                    utilise le client HTTP du JDK en HTTP/2 à la place du pool HTTP/1.1
+ */
+public record UpstreamHttpSettings(int maxConnections,
+                                   Duration connectTimeout,
+                                   Duration readTimeout,
+                                   Duration connectionRequestTimeout,
+                                   Duration keepAlive,
+                                   boolean http2) {
+}
@@ -0,0 +1,71 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+
+/**
+ * Construction des {@link ClientHttpRequestFactory} utilisées par les clients générés des services amont.
+ * <p>
+ * Par défaut, les connexions HTTP/1.1 sont mutualisées dans un pool borné et maintenues ouvertes entre deux appels,
+ * ce qui évite le coût d'établissement d'une connexion par requête et l'épuisement des sockets en pic de charge.
+ * En HTTP/2, le client du JDK multiplexe les requêtes sur une même connexion.
+ */
+@Slf4j
+public final class UpstreamRequestFactories {
+
+    private UpstreamRequestFactories() {
+    }
+
+    public static ClientHttpRequestFactory create(String upstream, UpstreamHttpSettings settings) {
+        log.info("Configuring HTTP client for {}: {}", upstream, settings);
+        return settings.http2() ? http2(settings) : pooled(settings);
+    }
+
+    private static ClientHttpRequestFactory pooled(UpstreamHttpSettings settings) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.readTimeout()))
+                        .build())
+                .build();
+
+        TimeValue keepAlive = TimeValue.of(settings.keepAlive());
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(settings.connectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(settings.readTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
+                .build();
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    private static ClientHttpRequestFactory http2(UpstreamHttpSettings settings) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(settings.connectTimeout())
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(settings.readTimeout());
+        return requestFactory;
+    }
+}
@@ -0,0 +1,76 @@
+package fr.cnam.initializr.facade.provider.mapper;
+
+import fr.cnam.initializr.facade.provider.tonic.SpooledArchive;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archive écrite sur disque, détenant une référence sur son {@link SpooledArchive}.
+ * <p>
+ * Comme une {@link StreamingArchiveResource}, son contenu ne peut être lu qu'une seule fois : la référence est rendue
+ * dès l'ouverture du fichier, qui reste lisible jusqu'à la fermeture du flux même s'il est supprimé entre-temps.
+ * {@link #readableChannel()} renvoie un {@link FileChannel}, que la couche web recopie vers le client par blocs,
+ * sans charger l'archive entière en mémoire.
+ */
+public class SpooledArchiveResource extends AbstractResource {
+    private final SpooledArchive archive;
+    private final AtomicBoolean consumed = new AtomicBoolean();
+
+    public SpooledArchiveResource(SpooledArchive archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() throws IOException {
+        if (!consumed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Spooled archive " + archive.getFile() + " has already been read");
+        }
+        try {
+            return FileChannel.open(archive.getFile(), StandardOpenOption.READ);
+        } finally {
+            archive.release();
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Channels.newInputStream(readableChannel());
+    }
+
+    /**
+     * Comme une {@link org.springframework.core.io.InputStreamResource}, la ressource ne peut être lue qu'une fois :
+     * un détenteur qui ne la transmet pas doit ouvrir puis refermer son flux pour rendre la référence.
+     */
+    @Override
+    public boolean isOpen() {
+        return !consumed.get();
+    }
+
+    @Override
+    public boolean isFile() {
+        return true;
+    }
+
+    @Override
+    public File getFile() {
+        return archive.getFile().toFile();
+    }
+
+    @Override
+    public long contentLength() {
+        return archive.getSize();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Spooled TONIC archive [" + archive.getFile() + "]";
+    }
+}
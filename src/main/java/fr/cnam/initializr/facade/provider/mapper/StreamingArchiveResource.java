@@ -0,0 +1,27 @@
+package fr.cnam.initializr.facade.provider.mapper;
+
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.InputStream;
+
+/**
+ * Archive dont le contenu est lu au fil de l'eau depuis la réponse TONIC, sans être chargé en mémoire.
+ * <p>
+ * Le flux ne peut être consommé qu'une seule fois ; sa fermeture libère la connexion vers TONIC.
+ */
+public class StreamingArchiveResource extends InputStreamResource {
+    private final long contentLength;
+
+    public StreamingArchiveResource(InputStream content, long contentLength) {
+        super(content, "TONIC archive stream");
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * @return la taille annoncée par TONIC, ou {@code -1} si elle est inconnue
+     */
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+}
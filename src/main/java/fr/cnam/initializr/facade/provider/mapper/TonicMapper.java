@@ -6,10 +6,14 @@ import fr.cnam.initializr.facade.business.model.Contract;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.model.Library;
 import fr.cnam.initializr.facade.controller.rest.model.ContractType;
+import fr.cnam.initializr.facade.provider.tonic.SpooledArchive;
 import org.springframework.core.io.ByteArrayResource;
 
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 @org.springframework.stereotype.Component
@@ -51,7 +55,45 @@ public class TonicMapper {
         return null;
     }
 
+    /**
+     * Construit la forme canonique d'une requête TONIC, utilisée comme clé de cache des archives générées.
+     * Les dépendances sont triées afin que deux requêtes ne différant que par l'ordre des features partagent la même clé.
+     *
+     * @param request la requête TONIC
+     * @return la forme canonique de la requête
+     */
+    public String toCanonicalForm(ProjectRequest request) {
+        List<String> dependencies = request.getDependencies() == null
+                ? Collections.emptyList()
+                : new ArrayList<>(request.getDependencies());
+        Collections.sort(dependencies);
+
+        return String.join("|",
+                String.join(",", dependencies),
+                String.valueOf(request.getGroupId()),
+                String.valueOf(request.getArtifactId()),
+                String.valueOf(request.getName()),
+                String.valueOf(request.getType()),
+                String.valueOf(request.getDescription()),
+                String.valueOf(request.getVersion()),
+                String.valueOf(request.getBootVersion()),
+                String.valueOf(request.getPackaging()),
+                String.valueOf(request.getApplicationName()),
+                String.valueOf(request.getLanguage()),
+                String.valueOf(request.getPackageName()),
+                String.valueOf(request.getJavaVersion()),
+                String.valueOf(request.getBaseDir()));
+    }
+
     public Instance toBusinessArchive(byte[] zipContent) {
         return new Instance(new ByteArrayResource(zipContent));
     }
+
+    public Instance toSpooledArchive(SpooledArchive archive) {
+        return new Instance(new SpooledArchiveResource(archive));
+    }
+
+    public Instance toStreamingArchive(InputStream zipContent, long contentLength) {
+        return new Instance(new StreamingArchiveResource(zipContent, contentLength));
+    }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import fr.cnam.initializr.facade.business.model.Metric;
 import fr.cnam.initializr.facade.business.port.MetricProvider;
 import fr.cnam.initializr.facade.client.metric.controller.rest.api.ModuleApi;
 import fr.cnam.initializr.facade.client.metric.controller.rest.model.ModuleResource;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.config.UpstreamBulkhead;
 import fr.cnam.initializr.facade.provider.mapper.MetricMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,10 +16,12 @@ public class ApiMetricProvider implements MetricProvider {
 
     private final ModuleApi moduleApi;
     private final MetricMapper metricMapper;
+    private final UpstreamBulkhead bulkhead;
+    private final FacadeMetrics metrics;
 
     @Override
     public void recordMetric(Metric metric) {
         ModuleResource moduleResource = metricMapper.toModuleResource(metric);
-        moduleApi.putModule(moduleResource);
+        bulkhead.run(() -> metrics.recordMetricServiceCall(() -> moduleApi.putModule(moduleResource)));
     }
 }
\ No newline at end of file
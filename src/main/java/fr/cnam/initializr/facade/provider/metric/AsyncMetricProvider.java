@@ -0,0 +1,192 @@
+package fr.cnam.initializr.facade.provider.metric;
+
+import fr.cnam.initializr.facade.business.model.Metric;
+import fr.cnam.initializr.facade.business.port.MetricProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Enregistrement asynchrone des métriques, hors du chemin de la requête de génération.
+ * <p>
+ * Les métriques sont déposées dans une file bornée puis envoyées par lots au {@link MetricProvider} délégué
+ * par un nombre configurable d'émetteurs. Lorsque la file est pleine, la {@link OverflowPolicy} choisie
+ * s'applique. À l'arrêt de l'application, la file est vidée dans la limite du délai configuré.
+ */
+@Slf4j
+public class AsyncMetricProvider implements MetricProvider, AutoCloseable {
+
+    /**
+     * Comportement lorsque la file d'attente des métriques est pleine.
+     */
+    public enum OverflowPolicy {
+        /**
+         * La métrique est abandonnée.
+         */
+        DROP,
+        /**
+         * L'appelant attend qu'une place se libère dans la file.
+         */
+        BLOCK,
+        /**
+         * La métrique est envoyée de manière synchrone par l'appelant.
+         */
+        CALLER_RUNS,
+        /**
+         * La métrique est écrite par l'appelant dans le journal des métriques, qui l'enverra en arrière-plan.
+         */
+        SPILL
+    }
+
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final MetricProvider delegate;
+    private final Consumer<Metric> spill;
+    private final BlockingQueue<Metric> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final CountDownLatch sendersStopped;
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile boolean running = true;
+
+    public AsyncMetricProvider(MetricProvider delegate,
+                               Executor senderExecutor,
+                               int queueCapacity,
+                               int senderCount,
+                               int batchSize,
+                               OverflowPolicy overflowPolicy,
+                               Consumer<Metric> spill,
+                               Duration shutdownTimeout) {
+        if (overflowPolicy == OverflowPolicy.SPILL && spill == null) {
+            throw new IllegalArgumentException("The SPILL overflow policy requires the metric spool to be enabled");
+        }
+        this.delegate = delegate;
+        this.spill = spill;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.sendersStopped = new CountDownLatch(senderCount);
+
+        for (int i = 0; i < senderCount; i++) {
+            senderExecutor.execute(this::sendLoop);
+        }
+        log.info("Asynchronous metric recording started with {} senders, queue capacity {} and overflow policy {}",
+                senderCount, queueCapacity, overflowPolicy);
+    }
+
+    @Override
+    public void recordMetric(Metric metric) {
+        if (!running) {
+            sendSafely(metric);
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP -> {
+                if (!queue.offer(metric)) {
+                    droppedCount.increment();
+                    log.warn("Metric queue is full, dropping metric: {}", metric);
+                }
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(metric);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.increment();
+                    log.warn("Interrupted while waiting for metric queue, dropping metric: {}", metric);
+                }
+            }
+            case CALLER_RUNS -> {
+                if (!queue.offer(metric)) {
+                    sendSafely(metric);
+                }
+            }
+            case SPILL -> {
+                if (!queue.offer(metric)) {
+                    spill.accept(metric);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return le nombre de métriques en attente d'envoi
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return le nombre de métriques abandonnées depuis le démarrage, faute de place dans la file
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Arrête les émetteurs après avoir vidé la file, dans la limite du délai d'arrêt configuré, puis ferme le
+     * {@link MetricProvider} délégué.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (!sendersStopped.await(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Metric queue not drained within {}, {} metrics lost", shutdownTimeout, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining metric queue, {} metrics lost", queue.size());
+        }
+
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Unable to close metric provider: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sendLoop() {
+        List<Metric> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Metric first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(this::sendSafely);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sendersStopped.countDown();
+        }
+    }
+
+    private void sendSafely(Metric metric) {
+        try {
+            delegate.recordMetric(metric);
+        } catch (RuntimeException e) {
+            // Échec non bloquant : l'enregistrement des métriques est optionnel et n'affecte pas le flux principal de l'application
+            log.error("Failed to record metric asynchronously. Module: {}, Error: {}", metric, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package fr.cnam.initializr.facade.provider.metric;
+
+import fr.cnam.initializr.facade.business.model.Metric;
+import fr.cnam.initializr.facade.util.IoUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import static fr.cnam.initializr.facade.util.IoUtils.readOptionalUTF;
+import static fr.cnam.initializr.facade.util.IoUtils.writeOptionalUTF;
+
+/**
+ * Journal local, en ajout seul, des métriques qui n'ont pas pu être envoyées au service de métriques.
+ * <p>
+ * Les métriques sont ajoutées séquentiellement à des segments de taille bornée ({@code metrics-<n>.seg}). Chaque
+ * enregistrement est préfixé par sa taille et sa somme de contrôle CRC32, ce qui permet d'écarter à l'ouverture un
+ * enregistrement tronqué par un arrêt brutal. Les ajouts concurrents partagent un même {@code fsync} : un appelant
+ * dont l'écriture a déjà été rendue durable par celui d'un autre n'en déclenche pas de nouveau.
+ * <p>
+ * La relecture reprend au dernier point de reprise, persisté dans le fichier {@code checkpoint}, et supprime chaque
+ * segment dès qu'il a été entièrement acquitté. La livraison est « au moins une fois » : après un arrêt brutal,
+ * les métriques acquittées depuis le dernier point de reprise persisté sont renvoyées.
+ */
+@Slf4j
+public class MetricSpool implements AutoCloseable {
+    private static final int MAGIC = 0x464D5350;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "metrics-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long maxSize;
+    private final NavigableSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong spooledBytes = new AtomicLong();
+    private final AtomicLong syncedCount = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel active;
+    private long activeSequence;
+    private long activePosition;
+    private long nextSequence;
+    private long appendedCount;
+    private boolean closed;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private long readSequence;
+    private long readOffset;
+    private long checkpointSequence = -1;
+    private long checkpointOffset = -1;
+
+    private MetricSpool(Path directory, long segmentSize, long maxSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Ouvre le journal du répertoire donné, en reprenant les métriques qui y restent depuis un arrêt précédent.
+     *
+     * @param directory   le répertoire du journal, créé au besoin
+     * @param segmentSize la taille au-delà de laquelle un nouveau segment est commencé
+     * @param maxSize     la taille totale au-delà de laquelle les nouvelles métriques sont abandonnées
+     */
+    public static MetricSpool open(Path directory, long segmentSize, long maxSize) throws IOException {
+        MetricSpool spool = new MetricSpool(directory, segmentSize, maxSize);
+        spool.recover();
+        return spool;
+    }
+
+    /**
+     * Ajoute une métrique à la fin du journal et attend qu'elle soit écrite durablement.
+     *
+     * @return {@code false} si la métrique a été abandonnée, le journal étant plein ou fermé
+     */
+    public boolean append(Metric metric) throws IOException {
+        byte[] record = encode(metric);
+        long sequence;
+        writeLock.lock();
+        try {
+            if (closed || spooledBytes.get() + record.length > maxSize) {
+                droppedCount.increment();
+                return false;
+            }
+            if (active == null || !active.isOpen()
+                    || (activePosition > SEGMENT_HEADER_SIZE && activePosition + record.length > segmentSize)) {
+                roll();
+            }
+
+            // Écriture positionnelle : une écriture interrompue est recouverte par la suivante
+            writeFully(active, ByteBuffer.wrap(record), activePosition);
+            activePosition += record.length;
+            spooledBytes.addAndGet(record.length);
+            pendingCount.incrementAndGet();
+            sequence = ++appendedCount;
+        } finally {
+            writeLock.unlock();
+        }
+
+        sync(sequence);
+        return true;
+    }
+
+    /**
+     * Relit dans l'ordre les métriques en attente et les transmet à l'émetteur, jusqu'à ce qu'il en refuse une.
+     * Les métriques acceptées sont acquittées et les segments entièrement acquittés supprimés.
+     *
+     * @param maxRecords le nombre maximal de métriques à relire
+     * @param sender     envoie une métrique, et retourne {@code false} si elle doit être renvoyée plus tard
+     * @return le nombre de métriques acquittées
+     */
+    public int replay(int maxRecords, Predicate<Metric> sender) throws IOException {
+        replayLock.lock();
+        try {
+            int acknowledged = 0;
+            boolean stopped = false;
+            while (!stopped && acknowledged < maxRecords) {
+                Long sequence = segments.ceiling(readSequence);
+                if (sequence == null) {
+                    break;
+                }
+                if (sequence != readSequence) {
+                    readSequence = sequence;
+                    readOffset = SEGMENT_HEADER_SIZE;
+                }
+
+                long limit = readableLimit(sequence);
+                if (readOffset >= limit) {
+                    if (!release(sequence)) {
+                        break;
+                    }
+                    continue;
+                }
+
+                try (FileChannel channel = FileChannel.open(segmentPath(sequence), StandardOpenOption.READ)) {
+                    while (acknowledged < maxRecords && readOffset < limit) {
+                        SpooledRecord record = readRecord(channel, readOffset, limit);
+                        if (record == null) {
+                            log.warn("Skipping corrupted end of metric spool segment {} from offset {}",
+                                    segmentPath(sequence), readOffset);
+                            readOffset = limit;
+                            break;
+                        }
+                        if (!sender.test(record.metric())) {
+                            stopped = true;
+                            break;
+                        }
+                        readOffset = record.nextOffset();
+                        pendingCount.decrementAndGet();
+                        acknowledged++;
+                    }
+                }
+            }
+
+            saveCheckpoint();
+            return acknowledged;
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    /**
+     * @return le nombre de métriques en attente de relecture
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return la taille du journal sur disque, en octets
+     */
+    public long getSpooledBytes() {
+        return spooledBytes.get();
+    }
+
+    /**
+     * @return le nombre de métriques abandonnées depuis le démarrage, le journal étant plein
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            closed = true;
+            if (active != null && active.isOpen()) {
+                active.force(false);
+                active.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in metric spool", file);
+                }
+            }
+        }
+
+        loadCheckpoint();
+        for (Long sequence : segments.headSet(readSequence, false)) {
+            deleteSegment(sequence);
+        }
+
+        for (Long sequence : segments) {
+            Path file = segmentPath(sequence);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (!hasValidHeader(channel)) {
+                    log.warn("Deleting metric spool segment {} written in an unknown format", file);
+                    channel.close();
+                    deleteSegment(sequence);
+                    continue;
+                }
+
+                long offset = sequence == readSequence ? Math.max(readOffset, SEGMENT_HEADER_SIZE) : SEGMENT_HEADER_SIZE;
+                long size = channel.size();
+                SpooledRecord record;
+                while (offset < size && (record = readRecord(channel, offset, size)) != null) {
+                    offset = record.nextOffset();
+                    pendingCount.incrementAndGet();
+                }
+                if (offset < size) {
+                    // Enregistrement tronqué par un arrêt brutal : la suite du segment ne peut être relue
+                    log.warn("Truncating incomplete record at offset {} of metric spool segment {}", offset, file);
+                    channel.truncate(offset);
+                    size = offset;
+                }
+                spooledBytes.addAndGet(size);
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            activeSequence = segments.last();
+            active = FileChannel.open(segmentPath(activeSequence), StandardOpenOption.WRITE);
+            activePosition = active.size();
+            nextSequence = activeSequence + 1;
+        } else {
+            nextSequence = readSequence;
+        }
+
+        if (pendingCount.get() > 0) {
+            log.info("Recovered {} metrics from spool {}, they will be replayed once the metric service is available",
+                    pendingCount.get(), directory);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (active != null && active.isOpen()) {
+            // Écarte les restes d'une écriture interrompue, qui seraient pris pour un enregistrement corrompu
+            active.truncate(activePosition);
+            active.force(false);
+            active.close();
+            syncedCount.accumulateAndGet(appendedCount, Math::max);
+        }
+
+        activeSequence = nextSequence++;
+        active = FileChannel.open(segmentPath(activeSequence), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        writeFully(active, ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+        activePosition = SEGMENT_HEADER_SIZE;
+        segments.add(activeSequence);
+        spooledBytes.addAndGet(SEGMENT_HEADER_SIZE);
+    }
+
+    /**
+     * Rend durables les ajouts jusqu'au numéro donné. Un seul {@code fsync} couvre tous les ajouts effectués avant
+     * son déclenchement, les appelants concurrents n'attendant que sa fin.
+     */
+    private void sync(long sequence) throws IOException {
+        if (syncedCount.get() >= sequence) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            if (syncedCount.get() >= sequence) {
+                return;
+            }
+
+            FileChannel channel;
+            long target;
+            writeLock.lock();
+            try {
+                channel = active;
+                target = appendedCount;
+            } finally {
+                writeLock.unlock();
+            }
+
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                }
+            } catch (ClosedChannelException e) {
+                // Segment changé ou supprimé entre-temps : il a été forcé avant sa fermeture
+            }
+            syncedCount.accumulateAndGet(target, Math::max);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private long readableLimit(long sequence) throws IOException {
+        writeLock.lock();
+        try {
+            if (active != null && sequence == activeSequence) {
+                return activePosition;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return Files.size(segmentPath(sequence));
+    }
+
+    /**
+     * Supprime un segment entièrement relu. Le segment courant n'est supprimé que si aucune métrique
+     * ne lui a été ajoutée depuis sa relecture.
+     *
+     * @return {@code true} si la relecture peut se poursuivre
+     */
+    private boolean release(long sequence) throws IOException {
+        writeLock.lock();
+        try {
+            if (active != null && sequence == activeSequence) {
+                if (activePosition > readOffset) {
+                    return true;
+                }
+                active.close();
+                active = null;
+                deleteSegment(sequence);
+                // Plus aucun segment : rien ne reste à relire, y compris après un enregistrement corrompu
+                pendingCount.set(0);
+                readSequence = nextSequence;
+                readOffset = SEGMENT_HEADER_SIZE;
+                return false;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        deleteSegment(sequence);
+        readSequence = sequence + 1;
+        readOffset = SEGMENT_HEADER_SIZE;
+        return true;
+    }
+
+    private void deleteSegment(long sequence) throws IOException {
+        Path file = segmentPath(sequence);
+        long size = Files.exists(file) ? Files.size(file) : 0;
+        Files.deleteIfExists(file);
+        segments.remove(sequence);
+        spooledBytes.addAndGet(-size);
+        log.debug("Deleted acknowledged metric spool segment {}", file);
+    }
+
+    private void loadCheckpoint() throws IOException {
+        readSequence = segments.isEmpty() ? 0 : segments.first();
+        readOffset = SEGMENT_HEADER_SIZE;
+
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring metric spool checkpoint {} written in an unknown format", file);
+                return;
+            }
+            readSequence = in.readLong();
+            readOffset = in.readLong();
+            checkpointSequence = readSequence;
+            checkpointOffset = readOffset;
+        } catch (EOFException e) {
+            log.warn("Ignoring truncated metric spool checkpoint {}", file);
+        }
+    }
+
+    private void saveCheckpoint() throws IOException {
+        if (readSequence == checkpointSequence && readOffset == checkpointOffset) {
+            return;
+        }
+
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temporary = Files.createTempFile(directory, CHECKPOINT_FILE, ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(24)
+                    .putInt(MAGIC).putInt(FORMAT_VERSION).putLong(readSequence).putLong(readOffset).flip(), 0);
+            channel.force(false);
+        }
+        try {
+            IoUtils.moveAtomically(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        checkpointSequence = readSequence;
+        checkpointOffset = readOffset;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static boolean hasValidHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        return readFully(channel, header, 0) && header.getInt(0) == MAGIC && header.getInt(4) == FORMAT_VERSION;
+    }
+
+    /**
+     * @return l'enregistrement lu à la position donnée, ou {@code null} s'il est tronqué ou corrompu
+     */
+    private SpooledRecord readRecord(FileChannel channel, long offset, long limit) throws IOException {
+        if (offset + RECORD_HEADER_SIZE > limit) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        if (!readFully(channel, header, offset)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        if (length <= 0 || length > segmentSize || offset + RECORD_HEADER_SIZE + length > limit) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(channel, payload, offset + RECORD_HEADER_SIZE)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        try {
+            return new SpooledRecord(decode(payload.array()), offset + RECORD_HEADER_SIZE + length);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(Metric metric) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        writeOptionalUTF(out, metric.getDds());
+        writeOptionalUTF(out, metric.getCodeModule());
+        out.writeLong(metric.getDateInstanciation() == null ? Long.MIN_VALUE : metric.getDateInstanciation().toEpochDay());
+        writeOptionalUTF(out, metric.getTypeModule());
+        writeOptionalUTF(out, metric.getTypeSK());
+        writeOptionalUTF(out, metric.getVersionSK());
+        writeOptionalUTF(out, metric.getUsecases());
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+        ByteBuffer.wrap(record).putInt(record.length - RECORD_HEADER_SIZE).putInt((int) crc.getValue());
+        return record;
+    }
+
+    private static Metric decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Metric metric = new Metric();
+        metric.setDds(readOptionalUTF(in));
+        metric.setCodeModule(readOptionalUTF(in));
+        long epochDay = in.readLong();
+        metric.setDateInstanciation(epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay));
+        metric.setTypeModule(readOptionalUTF(in));
+        metric.setTypeSK(readOptionalUTF(in));
+        metric.setVersionSK(readOptionalUTF(in));
+        metric.setUsecases(readOptionalUTF(in));
+        return metric;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private record SpooledRecord(Metric metric, long nextOffset) {
+    }
+}
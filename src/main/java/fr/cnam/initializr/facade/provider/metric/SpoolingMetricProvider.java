@@ -0,0 +1,159 @@
+package fr.cnam.initializr.facade.provider.metric;
+
+import fr.cnam.initializr.facade.business.model.Metric;
+import fr.cnam.initializr.facade.business.port.MetricProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enregistrement durable des métriques pendant les indisponibilités du service de métriques.
+ * <p>
+ * Une métrique dont l'envoi échoue est ajoutée au {@link MetricSpool}, puis renvoyée dans l'ordre par un relecteur
+ * en arrière-plan dès que le service répond de nouveau, y compris après un redémarrage de l'application. Tant que le
+ * journal n'est pas vide, les nouvelles métriques y sont ajoutées à la suite, afin de conserver leur ordre et de ne
+ * pas solliciter un service indisponible.
+ * <p>
+ * Une métrique refusée par le service (réponse 4xx) n'est pas journalisée : la renvoyer ne la ferait pas accepter.
+ */
+@Slf4j
+public class SpoolingMetricProvider implements MetricProvider, AutoCloseable {
+
+    private final MetricProvider delegate;
+    private final MetricSpool spool;
+    private final int replayBatchSize;
+    private final Duration replayInterval;
+    private final Duration shutdownTimeout;
+    private final CountDownLatch stopRequested = new CountDownLatch(1);
+    private final CountDownLatch replayerStopped = new CountDownLatch(1);
+
+    public SpoolingMetricProvider(MetricProvider delegate,
+                                  MetricSpool spool,
+                                  Executor replayExecutor,
+                                  int replayBatchSize,
+                                  Duration replayInterval,
+                                  Duration shutdownTimeout) {
+        this.delegate = delegate;
+        this.spool = spool;
+        this.replayBatchSize = replayBatchSize;
+        this.replayInterval = replayInterval;
+        this.shutdownTimeout = shutdownTimeout;
+
+        replayExecutor.execute(this::replayLoop);
+    }
+
+    @Override
+    public void recordMetric(Metric metric) {
+        if (spool.getPendingCount() > 0) {
+            spool(metric);
+            return;
+        }
+
+        try {
+            delegate.recordMetric(metric);
+        } catch (RuntimeException e) {
+            if (isRejected(e)) {
+                throw e;
+            }
+            log.warn("Metric service unavailable, spooling metric to disk: {}", e.getMessage());
+            spool(metric);
+        }
+    }
+
+    /**
+     * Ajoute une métrique au journal sans tenter de l'envoyer. Elle sera envoyée par le relecteur.
+     */
+    public void spool(Metric metric) {
+        try {
+            if (!spool.append(metric)) {
+                log.warn("Metric spool is full, dropping metric: {}", metric);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spool metric " + metric, e);
+        }
+    }
+
+    /**
+     * Arrête le relecteur, dans la limite du délai d'arrêt configuré, puis ferme le journal.
+     * Les métriques qui y restent seront relues au prochain démarrage.
+     */
+    @Override
+    public void close() {
+        stopRequested.countDown();
+        try {
+            if (!replayerStopped.await(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Metric spool replayer not stopped within {}", shutdownTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            spool.close();
+        } catch (IOException e) {
+            log.warn("Unable to close metric spool: {}", e.getMessage());
+        }
+        if (spool.getPendingCount() > 0) {
+            log.info("{} spooled metrics will be replayed on next startup", spool.getPendingCount());
+        }
+    }
+
+    private void replayLoop() {
+        try {
+            while (!stopRequested.await(replayInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                replayPending();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replayerStopped.countDown();
+        }
+    }
+
+    private void replayPending() {
+        try {
+            long replayed = 0;
+            int batch;
+            do {
+                batch = spool.replay(replayBatchSize, this::resend);
+                replayed += batch;
+            } while (batch == replayBatchSize && stopRequested.getCount() > 0);
+
+            if (replayed > 0) {
+                log.info("Replayed {} spooled metrics, {} still pending", replayed, spool.getPendingCount());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to replay spooled metrics: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean resend(Metric metric) {
+        try {
+            delegate.recordMetric(metric);
+            return true;
+        } catch (RuntimeException e) {
+            if (isRejected(e)) {
+                log.error("Metric service rejected spooled metric, discarding it. Module: {}, Error: {}",
+                        metric, e.getMessage());
+                return true;
+            }
+            log.debug("Metric service still unavailable, replay postponed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseException) {
+                return responseException.getStatusCode().is4xxClientError();
+            }
+        }
+        return false;
+    }
+}
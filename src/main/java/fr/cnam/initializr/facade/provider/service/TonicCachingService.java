@@ -1,70 +1,464 @@
 package fr.cnam.initializr.facade.provider.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.cnam.client.tonic.controller.rest.api.TonicProjectGenerationControllerApi;
+import fr.cnam.client.tonic.controller.rest.invoker.ApiClient;
 import fr.cnam.client.tonic.controller.rest.model.Dependency;
 import fr.cnam.client.tonic.controller.rest.model.DependencyGroup;
 import fr.cnam.client.tonic.controller.rest.model.InitializrMetadata;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.cache.SharedCache;
+import fr.cnam.initializr.facade.provider.config.CircuitBreakerRegistry;
+import fr.cnam.initializr.facade.util.IoUtils;
 import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
 import fr.cnam.toni.starter.core.exceptions.ServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * Service responsable de la mise en cache des features TONIC.
- * Ce service est séparé pour éviter le problème d'auto-invocation du cache Spring.
+ * <p>
+ * Les features sont chargées au démarrage puis rafraîchies en arrière-plan avant l'expiration du cache (refresh-ahead).
+ * Pendant un rafraîchissement, ou si TONIC est indisponible, l'instantané précédent continue d'être servi
+ * (stale-while-revalidate) : après le démarrage, les appelants ne sont donc jamais bloqués par l'appel à TONIC.
+ * Un seul chargement vers TONIC est exécuté à la fois.
+ * <p>
+ * Chaque instantané chargé est persisté par le {@link TonicMetadataStore} : au démarrage, le dernier instantané
+ * connu est relu avant que l'application ne se déclare prête, puis réconcilié avec TONIC en arrière-plan.
+ * <p>
+ * Les appels à TONIC passent par le disjoncteur {@code tonic.metadata} : tant qu'il est ouvert, les rafraîchissements
+ * échouent sans solliciter TONIC et le dernier instantané reste servi.
+ * <p>
+ * Les rafraîchissements sont conditionnels : TONIC est interrogé avec les validateurs ({@code If-None-Match},
+ * {@code If-Modified-Since}) de l'instantané courant. Une réponse 304, ou un document identique au précédent,
+ * prolonge seulement l'instantané courant ; il n'est reconstruit que si son contenu a changé, et chaque nouvel
+ * instantané servi est alors annoncé par un {@link TonicMetadataRefreshedEvent}.
+ * <p>
+ * Lorsque plusieurs réplicas partagent un {@link SharedCache}, chaque instantané chargé y est publié et un seul
+ * réplica à la fois, détenteur du verrou partagé, interroge TONIC : les autres adoptent l'instantané publié tant qu'il
+ * n'approche pas de son expiration, et sont prévenus dès qu'un autre réplica en publie un plus récent.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TonicCachingService {
+    private static final String SHARED_REGION = "tonic.metadata";
+    private static final String SHARED_KEY = "snapshot";
+    private static final long SHARED_WAIT_INTERVAL_MILLIS = 200;
 
+    private final RestClient tonicRestClient;
     private final TonicProjectGenerationControllerApi tonicApi;
+    private final ObjectMapper objectMapper;
+    private final TonicMetadataStore metadataStore;
+    private final FacadeMetrics metrics;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SharedCache sharedCache;
+
+    @Value("${cache.tonic-features.ttl}")
+    private long ttl;
+
+    @Value("${cache.tonic-features.refresh-ahead-ratio:0.8}")
+    private double refreshAheadRatio;
+
+    @Value("${cache.tonic-features.retry-interval:30000}")
+    private long retryInterval;
+
+    @Value("${cache.shared.lock-lease:30000}")
+    private long sharedLockLease;
+
+    private final AtomicReference<TonicMetadataSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final ExecutorService refreshExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("tonic-metadata-refresh-"));
+    private volatile long lastAttemptAt;
 
     /**
      * Récupère toutes les fonctionnalités disponibles, organisées par catégorie
      *
      * @return Une map avec les catégories en clé et les listes de fonctionnalités en valeur
      */
-    @Cacheable(value = "tonicFeaturesByCategory")
     public Map<String, List<String>> getAllFeaturesByCategory() {
+        return getSnapshot().getFeaturesByCategory();
+    }
+
+    /**
+     * Récupère l'instantané courant des métadonnées TONIC, en déclenchant au besoin son rafraîchissement en arrière-plan.
+     *
+     * @return l'instantané des métadonnées, avec son catalogue pré-calculé
+     */
+    public TonicMetadataSnapshot getSnapshot() {
+        TonicMetadataSnapshot current = snapshot.get();
+        metrics.recordCacheAccess("tonic.metadata", current != null);
+        if (current == null) {
+            return loadFirstSnapshot();
+        }
+
+        refreshIfDue();
+        return current;
+    }
+
+    /**
+     * Charge les features TONIC au démarrage de l'application, avant qu'elle ne se déclare prête.
+     * Si un instantané persisté existe, il est servi immédiatement et TONIC n'est interrogé qu'en arrière-plan.
+     * Sinon, un échec du chargement n'empêche pas le démarrage : il sera retenté à la première demande.
+     * Appelé par le {@code StarterKitProviderRegistry}, en parallèle des autres starter kits.
+     */
+    public void warmUp() {
+        Optional<TonicMetadataSnapshot> persisted = metadataStore.load();
+        if (persisted.isPresent()) {
+            if (snapshot.compareAndSet(null, persisted.get())) {
+                eventPublisher.publishEvent(new TonicMetadataRefreshedEvent(persisted.get()));
+            }
+            log.info("Loaded persisted TONIC features snapshot, reconciling with TONIC in background");
+            refreshAsync();
+            return;
+        }
+
         try {
-            log.debug("Cache miss - fetching all features by category from TONIC service");
-            InitializrMetadata metadata = tonicApi.getMetadataConfig();
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Unable to load TONIC features at startup, will retry on first request: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Déclenche un rafraîchissement en arrière-plan si l'instantané courant approche de son expiration.
+     */
+    public void refreshIfDue() {
+        TonicMetadataSnapshot current = snapshot.get();
+        if (isDue(current) && System.currentTimeMillis() - lastAttemptAt >= retryInterval) {
+            refreshAsync();
+        }
+    }
+
+    /**
+     * Déclenche un rafraîchissement en arrière-plan, sauf si un rafraîchissement est déjà en cours.
+     */
+    public void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Background refresh of TONIC features failed, keeping previous snapshot: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        sharedCache.subscribe(SHARED_REGION, this::adoptSharedSnapshot);
+        metrics.registerGauge("fainj.tonic.metadata.age", "Age in seconds of the TONIC metadata snapshot being served",
+                snapshot, current -> current.get() == null
+                        ? Double.NaN
+                        : (System.currentTimeMillis() - current.get().getLoadedAt()) / 1000.0);
+    }
 
-            if (metadata == null || metadata.getDependencies() == null || metadata.getDependencies().getContent() == null) {
-                log.warn("No dependencies found in TONIC service response");
-                return new HashMap<>();
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        refreshExecutor.shutdownNow();
+        refreshExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private TonicMetadataSnapshot loadFirstSnapshot() {
+        loadLock.lock();
+        try {
+            TonicMetadataSnapshot current = snapshot.get();
+            if (current != null) {
+                return current;
+            }
+            TonicMetadataSnapshot loaded = tryLoad(false);
+            if (loaded != null) {
+                return loaded;
             }
+        } finally {
+            loadLock.unlock();
+        }
+        return awaitAndLoad();
+    }
 
-            Map<String, List<String>> featuresByCategory = new HashMap<>();
+    private TonicMetadataSnapshot load() {
+        TonicMetadataSnapshot loaded = tryLoad(false);
+        return loaded != null ? loaded : awaitAndLoad();
+    }
 
-            for (DependencyGroup group : metadata.getDependencies().getContent()) {
-                if (group.getName() != null && group.getContent() != null) {
-                    List<String> features = group.getContent().stream()
-                            .map(Dependency::getId)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toList());
+    /**
+     * Charge les métadonnées, en adoptant au besoin l'instantané publié par un autre réplica.
+     *
+     * @param force charge les métadonnées même si un autre réplica détient le verrou partagé
+     * @return l'instantané servi, ou {@code null} si aucun instantané n'est encore servi et qu'un autre réplica,
+     * détenteur du verrou partagé, charge les métadonnées
+     */
+    private TonicMetadataSnapshot tryLoad(boolean force) {
+        loadLock.lock();
+        try {
+            lastAttemptAt = System.currentTimeMillis();
+            TonicMetadataSnapshot current = snapshot.get();
+            TonicMetadataSnapshot shared = readSharedSnapshot();
+            if (shared != null && !isDue(shared) && isNewer(shared, current)) {
+                log.debug("Adopting TONIC metadata snapshot loaded by another replica");
+                metrics.recordMetadataRefresh("shared");
+                return adopt(current, shared);
+            }
 
-                    if (!features.isEmpty()) {
-                        featuresByCategory.put(group.getName(), features);
+            boolean locked = sharedCache.tryLock(SHARED_REGION, Duration.ofMillis(sharedLockLease));
+            try {
+                if (!locked && !force) {
+                    if (current != null) {
+                        log.debug("TONIC metadata being refreshed by another replica, keeping current snapshot");
                     }
+                    return current;
+                }
+
+                TonicMetadataSnapshot loaded = refresh(shared != null && isNewer(shared, current) ? shared : current);
+                adopt(current, loaded);
+                sharedCache.put(SHARED_REGION, SHARED_KEY, metadataStore.serialize(loaded), Duration.ofMillis(ttl));
+                return loaded;
+            } finally {
+                if (locked) {
+                    sharedCache.unlock(SHARED_REGION);
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Sert l'instantané donné, en l'annonçant si son contenu diffère de l'instantané courant, et le persiste.
+     */
+    private TonicMetadataSnapshot adopt(TonicMetadataSnapshot current, TonicMetadataSnapshot loaded) {
+        snapshot.set(loaded);
+        if (current == null || !loaded.getFeaturesByCategory().equals(current.getFeaturesByCategory())) {
+            eventPublisher.publishEvent(new TonicMetadataRefreshedEvent(loaded));
+        }
+        metadataStore.save(loaded);
+        return loaded;
+    }
+
+    /**
+     * Adopte l'instantané publié par un autre réplica s'il est plus récent que l'instantané courant. Sans effet
+     * pendant un chargement, qui consulte lui-même le cache partagé.
+     */
+    private void adoptSharedSnapshot() {
+        if (!loadLock.tryLock()) {
+            return;
+        }
+        try {
+            TonicMetadataSnapshot current = snapshot.get();
+            TonicMetadataSnapshot shared = readSharedSnapshot();
+            if (shared != null && isNewer(shared, current)) {
+                log.info("Adopting TONIC metadata snapshot refreshed by another replica");
+                metrics.recordMetadataRefresh("shared");
+                adopt(current, shared);
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Attend l'instantané que charge le réplica détenteur du verrou partagé, puis l'adopte ; à défaut, charge les
+     * métadonnées sans ce verrou. L'attente a lieu hors du verrou de chargement : elle ne retient ni les autres
+     * appelants, ni les rafraîchissements en arrière-plan, ni l'adoption d'un instantané publié entre-temps.
+     */
+    private TonicMetadataSnapshot awaitAndLoad() {
+        TonicMetadataSnapshot loadedElsewhere = awaitSharedSnapshot();
+        loadLock.lock();
+        try {
+            TonicMetadataSnapshot current = snapshot.get();
+            if (current != null) {
+                return current;
+            }
+            if (loadedElsewhere != null) {
+                metrics.recordMetadataRefresh("shared");
+                return adopt(null, loadedElsewhere);
+            }
+            log.warn("No TONIC metadata published by the replica holding the shared lock, loading it");
+            return tryLoad(true);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Attend, dans la limite du bail du verrou partagé, l'instantané que charge le réplica qui détient ce verrou.
+     * L'attente cesse dès qu'un instantané est servi, par exemple adopté depuis le cache partagé par un autre appelant.
+     */
+    private TonicMetadataSnapshot awaitSharedSnapshot() {
+        long deadline = System.currentTimeMillis() + sharedLockLease;
+        try {
+            while (System.currentTimeMillis() < deadline && snapshot.get() == null) {
+                Thread.sleep(SHARED_WAIT_INTERVAL_MILLIS);
+                TonicMetadataSnapshot shared = readSharedSnapshot();
+                if (shared != null) {
+                    return shared;
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private TonicMetadataSnapshot readSharedSnapshot() {
+        byte[] content = sharedCache.get(SHARED_REGION, SHARED_KEY);
+        return content == null ? null : metadataStore.deserialize(content, "shared by another replica").orElse(null);
+    }
+
+    private boolean isDue(TonicMetadataSnapshot candidate) {
+        return candidate == null
+                || System.currentTimeMillis() - candidate.getLoadedAt() >= (long) (ttl * refreshAheadRatio);
+    }
+
+    private static boolean isNewer(TonicMetadataSnapshot candidate, TonicMetadataSnapshot current) {
+        return current == null || candidate.getLoadedAt() > current.getLoadedAt();
+    }
+
+    private TonicMetadataSnapshot refresh(TonicMetadataSnapshot current) {
+        long now = System.currentTimeMillis();
+        MetadataResponse response = fetchMetadata(current);
+        if (response == null) {
+            log.debug("TONIC metadata not modified, extending current snapshot");
+            metrics.recordMetadataRefresh("not_modified");
+            return current.renew(now, current.getEtag(), current.getLastModified(), current.getContentHash());
+        }
+
+        String contentHash = IoUtils.sha256(response.body());
+        if (current != null && contentHash.equals(current.getContentHash())) {
+            log.debug("TONIC metadata document unchanged, extending current snapshot");
+            metrics.recordMetadataRefresh("unchanged");
+            return current.renew(now, response.etag(), response.lastModified(), contentHash);
+        }
+
+        Map<String, List<String>> featuresByCategory = toFeaturesByCategory(response.body());
+        if (current != null && featuresByCategory.equals(current.getFeaturesByCategory())) {
+            log.debug("TONIC features unchanged, extending current snapshot");
+            metrics.recordMetadataRefresh("unchanged");
+            return current.renew(now, response.etag(), response.lastModified(), contentHash);
+        }
+
+        metrics.recordMetadataRefresh("modified");
+        return new TonicMetadataSnapshot(featuresByCategory, now, response.etag(), response.lastModified(), contentHash);
+    }
 
-            log.debug("Retrieved features for {} categories from TONIC service", featuresByCategory.size());
-            return featuresByCategory;
+    /**
+     * Interroge TONIC avec les validateurs de l'instantané courant.
+     * <p>
+     * Le client TONIC généré ne permet pas d'ajouter d'en-têtes à un appel : l'opération {@code getMetadataConfig}
+     * est donc invoquée à travers un client dédié, dont les en-têtes par défaut portent ces validateurs, pour
+     * conserver le chemin et l'URL de base du contrat TONIC. Sa réponse brute donne accès au statut 304, aux
+     * en-têtes {@code ETag} et {@code Last-Modified} et au document tel que TONIC l'a servi.
+     *
+     * @return le document de métadonnées, ou {@code null} si TONIC répond qu'il n'a pas changé
+     */
+    private MetadataResponse fetchMetadata(TonicMetadataSnapshot current) {
+        try {
+            log.debug("Fetching TONIC metadata");
+            ResponseEntity<byte[]> response = circuitBreakers.get("tonic.metadata").call(() -> metrics.recordTonicCall(
+                    "metadata", () -> conditionalApi(current).getMetadataConfigWithResponseSpec().toEntity(byte[].class)));
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                return null;
+            }
+            return new MetadataResponse(response.getBody(),
+                    response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
         } catch (RestClientResponseException e) {
             log.error("Error while fetching TONIC features by category", e);
             throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Client TONIC dont chaque appel porte les validateurs de l'instantané courant. Les rafraîchissements étant
+     * espacés de plusieurs minutes, il est construit à chaque interrogation, sur le client HTTP partagé.
+     */
+    private TonicProjectGenerationControllerApi conditionalApi(TonicMetadataSnapshot current) {
+        ApiClient apiClient = new ApiClient(tonicRestClient.mutate()
+                .defaultHeaders(headers -> addValidators(headers, current))
+                .build());
+        apiClient.setBasePath(tonicApi.getApiClient().getBasePath());
+        return new TonicProjectGenerationControllerApi(apiClient);
+    }
+
+    private static void addValidators(HttpHeaders headers, TonicMetadataSnapshot current) {
+        if (current == null) {
+            return;
+        }
+        if (current.getEtag() != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, current.getEtag());
+        }
+        if (current.getLastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, current.getLastModified());
+        }
+    }
+
+    private Map<String, List<String>> toFeaturesByCategory(byte[] body) {
+        InitializrMetadata metadata;
+        try {
+            metadata = objectMapper.readValue(body, InitializrMetadata.class);
+        } catch (IOException e) {
+            log.error("Unable to read TONIC metadata", e);
+            throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
+        }
+
+        if (metadata == null || metadata.getDependencies() == null || metadata.getDependencies().getContent() == null) {
+            log.warn("No dependencies found in TONIC service response");
+            return new LinkedHashMap<>();
+        }
+
+        Map<String, List<String>> featuresByCategory = new LinkedHashMap<>();
+
+        for (DependencyGroup group : metadata.getDependencies().getContent()) {
+            if (group.getName() != null && group.getContent() != null) {
+                List<String> features = group.getContent().stream()
+                        .map(Dependency::getId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+
+                if (!features.isEmpty()) {
+                    featuresByCategory.put(group.getName(), features);
+                }
+            }
+        }
+
+        log.debug("Retrieved features for {} categories from TONIC service", featuresByCategory.size());
+        return featuresByCategory;
+    }
+
+    private record MetadataResponse(byte[] body, String etag, String lastModified) {
+    }
+}
@@ -1,47 +1,43 @@
 package fr.cnam.initializr.facade.provider.service;
 
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @EnableCaching
 @RequiredArgsConstructor
 public class TonicFeaturesService {
-    private static final String CONTRACTS_GROUP = "Contracts";
-
     private final TonicCachingService cachingService;
 
-    public List<String> getAvailableFeatures() {
-        Map<String, List<String>> featuresByCategory = cachingService.getAllFeaturesByCategory();
+    public void warmUp() {
+        cachingService.warmUp();
+    }
+
+    public void refreshIfDue() {
+        cachingService.refreshIfDue();
+    }
 
-        List<String> features = new ArrayList<>();
-        featuresByCategory.entrySet().stream()
-                .filter(entry -> !CONTRACTS_GROUP.equals(entry.getKey()))
-                .forEach(entry -> features.addAll(entry.getValue()));
+    public FeatureCatalog getCatalog() {
+        return cachingService.getSnapshot().getCatalog();
+    }
+
+    public List<String> getAvailableFeatures() {
+        List<String> features = getCatalog().getComponentFeatures();
 
         log.debug("Retrieved {} component features: {}", features.size(), features);
         return features;
     }
 
     public List<String> getAvailableContracts() {
-        Map<String, List<String>> featuresByCategory = cachingService.getAllFeaturesByCategory();
-
-        List<String> contracts = featuresByCategory.getOrDefault(CONTRACTS_GROUP, new ArrayList<>());
-
-        List<String> formattedContracts = contracts.stream()
-                .filter(id -> id.startsWith("toni-contract-"))
-                .map(id -> id.substring("toni-contract-".length()).toUpperCase())
-                .collect(Collectors.toList());
+        List<String> contracts = getCatalog().getContracts();
 
-        log.debug("Retrieved {} contract types: {}", formattedContracts.size(), formattedContracts);
-        return formattedContracts;
+        log.debug("Retrieved {} contract types: {}", contracts.size(), contracts);
+        return contracts;
     }
-}
\ No newline at end of file
+}
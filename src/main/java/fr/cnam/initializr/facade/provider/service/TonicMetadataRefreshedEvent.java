@@ -0,0 +1,10 @@
+package fr.cnam.initializr.facade.provider.service;
+
+/**
+ * Événement publié à chaque fois qu'un nouvel instantané des métadonnées TONIC est servi, afin que les réponses
+ * calculées à partir de l'instantané précédent soient invalidées.
+ *
+ * @param snapshot le nouvel instantané
+ */
+public record TonicMetadataRefreshedEvent(TonicMetadataSnapshot snapshot) {
+}
@@ -0,0 +1,93 @@
+package fr.cnam.initializr.facade.provider.service;
+
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantané immuable des métadonnées TONIC, construit une seule fois à chaque chargement.
+ * <p>
+ * Il conserve les features par catégorie telles que renvoyées par TONIC, ainsi que le {@link FeatureCatalog}
+ * pré-calculé : les features de composant (toutes catégories sauf les contrats) et les types de contrat,
+ * déjà débarrassés du préfixe {@code toni-contract-} et mis en majuscules.
+ * <p>
+ * Il conserve aussi les validateurs HTTP ({@code ETag}, {@code Last-Modified}) et l'empreinte du document TONIC dont
+ * il est issu, afin que le rafraîchissement suivant puisse être conditionnel : tant que le document ne change pas,
+ * l'instantané est seulement prolongé par {@link #renew}, sans être reconstruit.
+ */
+@Getter
+public class TonicMetadataSnapshot {
+    private static final String CONTRACTS_GROUP = "Contracts";
+    private static final String CONTRACT_PREFIX = "toni-contract-";
+
+    private final Map<String, List<String>> featuresByCategory;
+    private final FeatureCatalog catalog;
+    private final long loadedAt;
+    private final String etag;
+    private final String lastModified;
+    private final String contentHash;
+
+    public TonicMetadataSnapshot(Map<String, List<String>> featuresByCategory, long loadedAt) {
+        this(featuresByCategory, loadedAt, null, null, null);
+    }
+
+    /**
+     * @param etag         l'{@code ETag} renvoyé par TONIC, ou {@code null}
+     * @param lastModified le {@code Last-Modified} renvoyé par TONIC, ou {@code null}
+     * @param contentHash  l'empreinte SHA-256 du document TONIC, ou {@code null}
+     */
+    public TonicMetadataSnapshot(Map<String, List<String>> featuresByCategory, long loadedAt,
+                                 String etag, String lastModified, String contentHash) {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        featuresByCategory.forEach((category, features) -> copy.put(category, List.copyOf(features)));
+        this.featuresByCategory = Collections.unmodifiableMap(copy);
+        this.catalog = buildCatalog(this.featuresByCategory);
+        this.loadedAt = loadedAt;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+    }
+
+    private TonicMetadataSnapshot(TonicMetadataSnapshot previous, long loadedAt,
+                                  String etag, String lastModified, String contentHash) {
+        this.featuresByCategory = previous.featuresByCategory;
+        this.catalog = previous.catalog;
+        this.loadedAt = loadedAt;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Prolonge cet instantané, dont le contenu est toujours à jour, en partageant ses features et son catalogue.
+     *
+     * @param loadedAt la date de la revalidation
+     * @return un instantané de même contenu, daté de la revalidation et portant les validateurs donnés
+     */
+    public TonicMetadataSnapshot renew(long loadedAt, String etag, String lastModified, String contentHash) {
+        return new TonicMetadataSnapshot(this, loadedAt, etag, lastModified, contentHash);
+    }
+
+    private static FeatureCatalog buildCatalog(Map<String, List<String>> featuresByCategory) {
+        List<String> componentFeatures = new ArrayList<>();
+        featuresByCategory.forEach((category, features) -> {
+            if (!CONTRACTS_GROUP.equals(category)) {
+                componentFeatures.addAll(features);
+            }
+        });
+
+        List<String> contracts = new ArrayList<>();
+        for (String id : featuresByCategory.getOrDefault(CONTRACTS_GROUP, List.of())) {
+            if (id.startsWith(CONTRACT_PREFIX)) {
+                contracts.add(id.substring(CONTRACT_PREFIX.length()).toUpperCase());
+            }
+        }
+
+        return new FeatureCatalog(componentFeatures, contracts);
+    }
+}
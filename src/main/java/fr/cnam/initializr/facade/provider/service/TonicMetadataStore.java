@@ -0,0 +1,166 @@
+package fr.cnam.initializr.facade.provider.service;
+
+import fr.cnam.initializr.facade.util.IoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistance locale du dernier instantané valide des métadonnées TONIC.
+ * <p>
+ * L'instantané est écrit dans un format binaire compact (chaînes UTF préfixées par leur longueur, compressées en GZIP)
+ * et remplacé de manière atomique à chaque chargement réussi. Il permet un démarrage immédiat, y compris lorsque
+ * TONIC est lent ou indisponible au moment du déploiement.
+ */
+@Slf4j
+@Component
+public class TonicMetadataStore {
+    private static final int MAGIC = 0x464D4453;
+    private static final int FORMAT_VERSION = 3;
+
+    @Value("${cache.tonic-features.snapshot-file:}")
+    private String snapshotFile;
+
+    /**
+     * Relit le dernier instantané persisté.
+     *
+     * @return l'instantané, ou vide si la persistance est désactivée, le fichier absent ou illisible
+     */
+    public Optional<TonicMetadataSnapshot> load() {
+        if (snapshotFile.isBlank() || !Files.isRegularFile(Path.of(snapshotFile))) {
+            return Optional.empty();
+        }
+
+        try (InputStream in = Files.newInputStream(Path.of(snapshotFile))) {
+            return read(in, snapshotFile);
+        } catch (IOException e) {
+            log.warn("Unable to read TONIC metadata snapshot {}: {}", snapshotFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Persiste l'instantané donné en remplaçant atomiquement le précédent. Un échec est journalisé sans être propagé.
+     *
+     * @param snapshot l'instantané à persister
+     */
+    public void save(TonicMetadataSnapshot snapshot) {
+        if (snapshotFile.isBlank()) {
+            return;
+        }
+
+        Path target = Path.of(snapshotFile).toAbsolutePath();
+        try {
+            IoUtils.writeAtomically(target, out -> write(snapshot, out));
+            log.debug("Persisted TONIC metadata snapshot to {}", target);
+        } catch (IOException e) {
+            log.warn("Unable to persist TONIC metadata snapshot to {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * Sérialise un instantané dans le format du fichier persisté, afin de le partager avec les autres réplicas.
+     */
+    public byte[] serialize(TonicMetadataSnapshot snapshot) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            write(snapshot, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize TONIC metadata snapshot", e);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Relit un instantané produit par {@link #serialize(TonicMetadataSnapshot)}.
+     *
+     * @return l'instantané, ou vide si le contenu est illisible
+     */
+    public Optional<TonicMetadataSnapshot> deserialize(byte[] content, String source) {
+        try {
+            return read(new ByteArrayInputStream(content), source);
+        } catch (IOException e) {
+            log.warn("Unable to read TONIC metadata snapshot {}: {}", source, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<TonicMetadataSnapshot> read(InputStream content, String source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(content)));
+        int version = in.readInt() == MAGIC ? in.readInt() : -1;
+        if (version < 1 || version > FORMAT_VERSION) {
+            log.warn("Ignoring TONIC metadata snapshot {} written in an unknown format", source);
+            return Optional.empty();
+        }
+
+        long loadedAt = in.readLong();
+        // Les validateurs HTTP n'apparaissent qu'à partir de la version 2 du format, où une chaîne vide les remplace
+        // lorsqu'ils sont absents
+        String etag = readValidator(in, version);
+        String lastModified = readValidator(in, version);
+        String contentHash = readValidator(in, version);
+        int categoryCount = in.readInt();
+        Map<String, List<String>> featuresByCategory = new LinkedHashMap<>();
+        for (int i = 0; i < categoryCount; i++) {
+            String category = in.readUTF();
+            int featureCount = in.readInt();
+            List<String> features = new ArrayList<>(featureCount);
+            for (int j = 0; j < featureCount; j++) {
+                features.add(in.readUTF());
+            }
+            featuresByCategory.put(category, features);
+        }
+
+        return Optional.of(new TonicMetadataSnapshot(featuresByCategory, loadedAt, etag, lastModified, contentHash));
+    }
+
+    private static void write(TonicMetadataSnapshot snapshot, OutputStream content) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(content)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshot.getLoadedAt());
+            IoUtils.writeOptionalUTF(out, snapshot.getEtag());
+            IoUtils.writeOptionalUTF(out, snapshot.getLastModified());
+            IoUtils.writeOptionalUTF(out, snapshot.getContentHash());
+            out.writeInt(snapshot.getFeaturesByCategory().size());
+            for (Map.Entry<String, List<String>> category : snapshot.getFeaturesByCategory().entrySet()) {
+                out.writeUTF(category.getKey());
+                out.writeInt(category.getValue().size());
+                for (String feature : category.getValue()) {
+                    out.writeUTF(feature);
+                }
+            }
+        }
+    }
+
+    private static String readValidator(DataInputStream in, int version) throws IOException {
+        if (version < 2) {
+            return null;
+        }
+        if (version == 2) {
+            String value = in.readUTF();
+            return value.isEmpty() ? null : value;
+        }
+        return IoUtils.readOptionalUTF(in);
+    }
+}
@@ -0,0 +1,107 @@
+package fr.cnam.initializr.facade.provider.statistics;
+
+import fr.cnam.initializr.facade.business.model.StatisticsKey;
+import fr.cnam.initializr.facade.business.port.StatisticsStore;
+import fr.cnam.initializr.facade.util.IoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static fr.cnam.initializr.facade.util.IoUtils.readOptionalUTF;
+import static fr.cnam.initializr.facade.util.IoUtils.writeOptionalUTF;
+
+/**
+ * Persistance locale des compteurs de générations.
+ * <p>
+ * Les compteurs sont écrits dans le même format binaire compact que l'instantané des métadonnées TONIC, et le fichier
+ * est remplacé de manière atomique à chaque sauvegarde : un arrêt brutal ne perd que les générations comptées depuis
+ * la sauvegarde précédente.
+ */
+@Slf4j
+@Component
+public class FileStatisticsStore implements StatisticsStore {
+    private static final int MAGIC = 0x46535453;
+    private static final int FORMAT_VERSION = 1;
+
+    @Value("${initializer.statistics.checkpoint-file:}")
+    private String checkpointFile;
+
+    @Override
+    public Map<StatisticsKey, Long> load() {
+        Map<StatisticsKey, Long> counters = new HashMap<>();
+        if (checkpointFile.isBlank() || !Files.isRegularFile(Path.of(checkpointFile))) {
+            return counters;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(Path.of(checkpointFile)))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring generation statistics {} written in an unknown format", checkpointFile);
+                return counters;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                StatisticsKey key = new StatisticsKey(LocalDate.ofEpochDay(in.readLong()),
+                        readOptionalUTF(in),
+                        readOptionalUTF(in),
+                        readOptionalUTF(in),
+                        readOptionalUTF(in),
+                        readOptionalUTF(in));
+                counters.put(key, in.readLong());
+            }
+            return counters;
+        } catch (IOException e) {
+            log.warn("Unable to read generation statistics {}: {}", checkpointFile, e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Persiste les compteurs donnés en remplaçant atomiquement la sauvegarde précédente. Un échec est journalisé
+     * sans être propagé.
+     */
+    @Override
+    public void save(Map<StatisticsKey, Long> counters) {
+        if (checkpointFile.isBlank()) {
+            return;
+        }
+
+        Path target = Path.of(checkpointFile).toAbsolutePath();
+        try {
+            IoUtils.writeAtomically(target, content -> {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(content)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(counters.size());
+                    for (Map.Entry<StatisticsKey, Long> counter : counters.entrySet()) {
+                        StatisticsKey key = counter.getKey();
+                        out.writeLong(key.day().toEpochDay());
+                        writeOptionalUTF(out, key.dds());
+                        writeOptionalUTF(out, key.typeSK());
+                        writeOptionalUTF(out, key.versionSK());
+                        writeOptionalUTF(out, key.typeModule());
+                        writeOptionalUTF(out, key.feature());
+                        out.writeLong(counter.getValue());
+                    }
+                }
+            });
+            log.debug("Persisted {} generation statistics counters to {}", counters.size(), target);
+        } catch (IOException e) {
+            log.warn("Unable to persist generation statistics to {}: {}", target, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import fr.cnam.initializr.facade.util.ZipCentralDirectory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.CENTRAL_HEADER_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.CENTRAL_HEADER_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.FLAG_DATA_DESCRIPTOR;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.FLAG_UTF8;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.LOCAL_HEADER_SIGNATURE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.LOCAL_HEADER_SIZE;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.MAX_ENTRIES;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.MAX_OFFSET;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.METHOD_DEFLATED;
+import static fr.cnam.initializr.facade.util.ZipCentralDirectory.METHOD_STORED;
+
+/**
+ * Archive TONIC générée avec des valeurs sentinelles, découpée autour de ces valeurs afin d'être rendue
+ * pour d'autres coordonnées sans appeler TONIC.
+ * <p>
+ * Chaque nom et chaque contenu d'entrée est découpé en fragments littéraux séparés par des emplacements.
+ * Au rendu, seules les entrées dont le contenu contient un emplacement sont recompressées ; les autres sont recopiées
+ * telles quelles (données compressées, CRC et tailles d'origine), comme par le {@code ZipBundleWriter}. Les attributs
+ * des entrées, dont les permissions Unix des scripts, sont conservés.
+ * <p>
+ * Les archives ZIP64, multi-volumes, chiffrées ou utilisant une autre méthode que STORED ou DEFLATED sont refusées.
+ */
+final class ArchiveTemplate {
+    private final List<Entry> entries;
+    private final int estimatedSize;
+
+    private ArchiveTemplate(List<Entry> entries, int estimatedSize) {
+        this.entries = entries;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Découpe une archive autour des emplacements donnés.
+     *
+     * @param archive      le contenu complet de l'archive générée avec les valeurs sentinelles
+     * @param placeholders les valeurs sentinelles, par ordre de priorité lorsque plusieurs commencent au même endroit
+     * @param stem         radical commun aux valeurs sentinelles
+     * @return le modèle, ou {@code null} si le radical apparaît ailleurs que dans un emplacement reconnu :
+     * TONIC a alors transformé une valeur d'une manière que le rendu ne saurait reproduire
+     * @throws ZipException si l'archive est invalide ou utilise un format non pris en charge
+     */
+    static ArchiveTemplate parse(byte[] archive, List<String> placeholders, String stem) throws ZipException {
+        Tokenizer tokenizer = new Tokenizer(placeholders, stem);
+        List<ZipCentralDirectory.Entry> sourceEntries = ZipCentralDirectory.read(archive);
+        List<Entry> entries = new ArrayList<>(sourceEntries.size());
+        for (ZipCentralDirectory.Entry sourceEntry : sourceEntries) {
+            Entry entry = parseEntry(archive, sourceEntry, tokenizer);
+            if (entry == null) {
+                return null;
+            }
+            entries.add(entry);
+        }
+        return new ArchiveTemplate(List.copyOf(entries), archive.length);
+    }
+
+    /**
+     * Rend l'archive pour les valeurs données.
+     *
+     * @param values les valeurs remplaçant les emplacements, dans l'ordre des valeurs sentinelles du modèle
+     * @return le contenu complet de l'archive rendue
+     */
+    byte[] render(List<String> values) throws IOException {
+        byte[][] replacements = new byte[values.size()][];
+        for (int i = 0; i < replacements.length; i++) {
+            replacements[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        Writer writer = new Writer(estimatedSize + estimatedSize / 8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            for (Entry entry : entries) {
+                writer.write(entry, replacements, deflater);
+            }
+            return writer.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Entry parseEntry(byte[] archive, ZipCentralDirectory.Entry source, Tokenizer tokenizer)
+            throws ZipException {
+        if (source.method() != METHOD_STORED && source.method() != METHOD_DEFLATED) {
+            throw new ZipException("Unsupported compression method " + source.method());
+        }
+        byte[] compressed = Arrays.copyOfRange(archive, source.dataOffset(),
+                source.dataOffset() + (int) source.compressedSize());
+        byte[] content = source.method() == METHOD_STORED ? compressed : inflate(compressed, (int) source.size());
+
+        Fragments nameFragments = tokenizer.split(source.name().getBytes(StandardCharsets.UTF_8));
+        Fragments contentFragments = tokenizer.split(content);
+        if (nameFragments == null || contentFragments == null) {
+            return null;
+        }
+
+        return new Entry(
+                source.versionMadeBy(),
+                source.versionNeeded(),
+                (source.flags() & ~FLAG_DATA_DESCRIPTOR) | FLAG_UTF8,
+                source.method(),
+                source.lastModifiedTime(),
+                source.lastModifiedDate(),
+                source.crc(),
+                compressed,
+                (int) source.size(),
+                nameFragments,
+                contentFragments.isLiteral() ? null : contentFragments,
+                source.localExtra(),
+                source.extra(),
+                source.internalAttributes(),
+                source.externalAttributes());
+    }
+
+    private static byte[] inflate(byte[] compressed, int size) throws ZipException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] content = new byte[size];
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+                int count = inflater.inflate(content, length, size - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != size) {
+                throw new ZipException("Truncated compressed entry");
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed entry: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Fragments littéraux alternant avec des emplacements : {@code literals[0] tokens[0] literals[1] ...}.
+     */
+    private record Fragments(byte[][] literals, int[] tokens) {
+        boolean isLiteral() {
+            return tokens.length == 0;
+        }
+
+        void render(byte[][] replacements, ByteArrayOutputStream out) {
+            for (int i = 0; i < tokens.length; i++) {
+                out.writeBytes(literals[i]);
+                out.writeBytes(replacements[tokens[i]]);
+            }
+            out.writeBytes(literals[tokens.length]);
+        }
+    }
+
+    private record Entry(int versionMadeBy, int versionNeeded, int flags, int method,
+                         int lastModifiedTime, int lastModifiedDate, int crc, byte[] compressed, int size,
+                         Fragments name, Fragments content, byte[] localExtra, byte[] extra,
+                         int internalAttributes, int externalAttributes) {
+    }
+
+    private static final class Tokenizer {
+        private final byte[][] placeholders;
+        private final byte[] stem;
+
+        Tokenizer(List<String> placeholders, String stem) {
+            this.placeholders = placeholders.stream()
+                    .map(placeholder -> placeholder.getBytes(StandardCharsets.UTF_8))
+                    .toArray(byte[][]::new);
+            this.stem = stem.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return les fragments, ou {@code null} si le radical apparaît hors d'un emplacement
+         */
+        Fragments split(byte[] content) {
+            List<byte[]> literals = new ArrayList<>();
+            List<Integer> tokens = new ArrayList<>();
+            int start = 0;
+            int position = 0;
+            while (position < content.length) {
+                int token = matchAt(content, position);
+                if (token < 0) {
+                    position++;
+                    continue;
+                }
+                literals.add(copy(content, start, position));
+                tokens.add(token);
+                position += placeholders[token].length;
+                start = position;
+            }
+            literals.add(copy(content, start, content.length));
+
+            for (byte[] literal : literals) {
+                if (containsStem(literal)) {
+                    return null;
+                }
+            }
+            return new Fragments(literals.toArray(byte[][]::new), tokens.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private int matchAt(byte[] content, int position) {
+            for (int token = 0; token < placeholders.length; token++) {
+                byte[] placeholder = placeholders[token];
+                if (position + placeholder.length <= content.length
+                        && content[position] == placeholder[0]
+                        && Arrays.equals(content, position, position + placeholder.length,
+                        placeholder, 0, placeholder.length)) {
+                    return token;
+                }
+            }
+            return -1;
+        }
+
+        private boolean containsStem(byte[] literal) {
+            for (int i = 0; i + stem.length <= literal.length; i++) {
+                int j = 0;
+                while (j < stem.length && Character.toLowerCase(literal[i + j]) == stem[j]) {
+                    j++;
+                }
+                if (j == stem.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static byte[] copy(byte[] content, int from, int to) {
+            byte[] copy = new byte[to - from];
+            System.arraycopy(content, from, copy, 0, copy.length);
+            return copy;
+        }
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream out;
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+        private int entryCount;
+
+        Writer(int estimatedSize) {
+            this.out = new ByteArrayOutputStream(estimatedSize);
+        }
+
+        void write(Entry entry, byte[][] replacements, Deflater deflater) throws ZipException {
+            scratch.reset();
+            entry.name().render(replacements, scratch);
+            byte[] name = scratch.toByteArray();
+
+            int crc = entry.crc();
+            int size = entry.size();
+            byte[] data = entry.compressed();
+            if (entry.content() != null) {
+                scratch.reset();
+                entry.content().render(replacements, scratch);
+                byte[] content = scratch.toByteArray();
+                CRC32 checksum = new CRC32();
+                checksum.update(content);
+                crc = (int) checksum.getValue();
+                size = content.length;
+                data = entry.method() == METHOD_DEFLATED ? deflate(content, deflater) : content;
+            }
+
+            long localHeaderOffset = out.size();
+            if (localHeaderOffset >= MAX_OFFSET || entryCount == MAX_ENTRIES - 1) {
+                throw new ZipException("Rendered archive exceeds ZIP limits");
+            }
+            ByteBuffer localHeader = header(LOCAL_HEADER_SIZE + name.length + entry.localExtra().length);
+            localHeader.putInt(LOCAL_HEADER_SIGNATURE)
+                    .putShort((short) entry.versionNeeded())
+                    .putShort((short) entry.flags())
+                    .putShort((short) entry.method())
+                    .putShort((short) entry.lastModifiedTime())
+                    .putShort((short) entry.lastModifiedDate())
+                    .putInt(crc)
+                    .putInt(data.length)
+                    .putInt(size)
+                    .putShort((short) name.length)
+                    .putShort((short) entry.localExtra().length)
+                    .put(name)
+                    .put(entry.localExtra());
+            out.writeBytes(localHeader.array());
+            out.writeBytes(data);
+
+            ByteBuffer centralHeader = header(CENTRAL_HEADER_SIZE + name.length + entry.extra().length);
+            centralHeader.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort((short) entry.versionMadeBy())
+                    .putShort((short) entry.versionNeeded())
+                    .putShort((short) entry.flags())
+                    .putShort((short) entry.method())
+                    .putShort((short) entry.lastModifiedTime())
+                    .putShort((short) entry.lastModifiedDate())
+                    .putInt(crc)
+                    .putInt(data.length)
+                    .putInt(size)
+                    .putShort((short) name.length)
+                    .putShort((short) entry.extra().length)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) entry.internalAttributes())
+                    .putInt(entry.externalAttributes())
+                    .putInt((int) localHeaderOffset)
+                    .put(name)
+                    .put(entry.extra());
+            centralDirectory.writeBytes(centralHeader.array());
+            entryCount++;
+        }
+
+        byte[] finish() throws ZipException {
+            long centralDirectoryOffset = out.size();
+            out.writeBytes(centralDirectory.toByteArray());
+            if (out.size() >= MAX_OFFSET) {
+                throw new ZipException("Rendered archive exceeds 4 GB");
+            }
+
+            ByteBuffer end = header(END_OF_CENTRAL_DIRECTORY_SIZE);
+            end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) entryCount)
+                    .putShort((short) entryCount)
+                    .putInt(centralDirectory.size())
+                    .putInt((int) centralDirectoryOffset)
+                    .putShort((short) 0);
+            out.writeBytes(end.array());
+            return out.toByteArray();
+        }
+
+        private byte[] deflate(byte[] content, Deflater deflater) {
+            deflater.reset();
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                compressed.write(chunk, 0, count);
+            }
+            return compressed.toByteArray();
+        }
+
+        private static ByteBuffer header(int size) {
+            return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les appels identiques concurrents : tant qu'un appel est en cours pour une clé,
+ * les appelants suivants attendent et partagent son résultat (ou son erreur) au lieu d'en déclencher un nouveau.
+ *
+ * @param <K> le type de la clé identifiant un appel
+ * @param <V> le type du résultat partagé
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Exécute l'appel, ou rejoint l'appel identique déjà en cours.
+     *
+     * @param key  la clé identifiant l'appel
+     * @param call l'appel à exécuter si aucun appel identique n'est en cours
+     * @return le résultat de l'appel
+     */
+    public V execute(K key, Supplier<V> call) {
+        return execute(key, call, (result, followers) -> {
+        });
+    }
+
+    /**
+     * Exécute l'appel, ou rejoint l'appel identique déjà en cours.
+     * <p>
+     * Avant de transmettre son résultat, l'appelant qui a exécuté l'appel indique à {@code onShared} combien d'autres
+     * appelants vont le recevoir : un résultat détenant une ressource peut ainsi réserver une référence pour chacun.
+     * Le nombre d'appelants est définitif à ce moment, aucun appelant ne pouvant plus rejoindre l'appel.
+     *
+     * @param key      la clé identifiant l'appel
+     * @param call     l'appel à exécuter si aucun appel identique n'est en cours
+     * @param onShared reçoit le résultat et le nombre d'appelants l'ayant rejoint
+     * @return le résultat de l'appel
+     */
+    public V execute(K key, Supplier<V> call, ObjIntConsumer<V> onShared) {
+        Flight<V> own = new Flight<>();
+        Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return own;
+            }
+            existing.followers++;
+            return existing;
+        });
+        if (flight != own) {
+            return await(flight.result);
+        }
+
+        try {
+            V result = call.get();
+            onShared.accept(result, leave(key, own));
+            own.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            leave(key, own);
+            own.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Retire l'appel de la table des appels en cours.
+     *
+     * @return le nombre d'appelants l'ayant rejoint
+     */
+    private int leave(K key, Flight<V> own) {
+        int[] followers = new int[1];
+        inFlight.computeIfPresent(key, (k, existing) -> {
+            if (existing != own) {
+                return existing;
+            }
+            followers[0] = existing.followers;
+            return null;
+        });
+        return followers[0];
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        /** Modifié uniquement sous le verrou de l'entrée de la table. */
+        private int followers;
+    }
+}
@@ -0,0 +1,62 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Archive générée écrite sur disque par le {@link TonicArchiveSpool}, partagée par compteur de références.
+ * <p>
+ * Chaque détenteur d'une référence doit la rendre par {@link #release()} ; le fichier est supprimé lorsque
+ * la dernière référence est rendue. Un fichier déjà ouvert reste lisible après sa suppression.
+ */
+@Slf4j
+public class SpooledArchive {
+    @Getter
+    private final Path file;
+    @Getter
+    private final long size;
+    private final LongConsumer onDeleted;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    SpooledArchive(Path file, long size, LongConsumer onDeleted) {
+        this.file = file;
+        this.size = size;
+        this.onDeleted = onDeleted;
+    }
+
+    /**
+     * Réserve des références supplémentaires, à rendre chacune par {@link #release()}.
+     *
+     * @param count le nombre de références à réserver
+     */
+    public void retain(int count) {
+        int previous = references.getAndAdd(count);
+        if (previous <= 0) {
+            references.getAndAdd(-count);
+            throw new IllegalStateException("Spooled archive " + file + " has already been deleted");
+        }
+    }
+
+    /**
+     * Rend une référence, et supprime le fichier s'il s'agissait de la dernière.
+     */
+    public void release() {
+        if (references.decrementAndGet() != 0) {
+            return;
+        }
+        try {
+            // Le fichier a pu être supprimé entre-temps par le nettoyage du TonicArchiveSpool
+            if (Files.deleteIfExists(file)) {
+                onDeleted.accept(size);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete spooled archive {}: {}", file, e.getMessage());
+        }
+    }
+}
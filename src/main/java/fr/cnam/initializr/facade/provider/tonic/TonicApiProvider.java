@@ -1,38 +1,144 @@
 package fr.cnam.initializr.facade.provider.tonic;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.cnam.client.tonic.controller.rest.api.TonicProjectGenerationControllerApi;
+import fr.cnam.client.tonic.controller.rest.invoker.ApiClient;
 import fr.cnam.client.tonic.controller.rest.model.ProjectRequest;
 import fr.cnam.initializr.facade.business.model.Component;
 import fr.cnam.initializr.facade.business.model.Contract;
+import fr.cnam.initializr.facade.business.model.FeatureCatalog;
 import fr.cnam.initializr.facade.business.model.Instance;
 import fr.cnam.initializr.facade.business.port.TonicProvider;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.config.AdaptiveConcurrencyLimiter;
+import fr.cnam.initializr.facade.provider.config.CircuitBreakerRegistry;
+import fr.cnam.initializr.facade.provider.config.UpstreamBulkhead;
+import fr.cnam.initializr.facade.provider.mapper.StreamingArchiveResource;
 import fr.cnam.initializr.facade.provider.mapper.TonicMapper;
 import fr.cnam.initializr.facade.provider.service.TonicFeaturesService;
 import fr.cnam.toni.starter.core.exceptions.CommonProblemType;
 import fr.cnam.toni.starter.core.exceptions.ServiceException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
+@Slf4j
 @org.springframework.stereotype.Component
 @RequiredArgsConstructor
 public class TonicApiProvider implements TonicProvider {
 
+    private static final TypeReference<Map<String, Object>> REQUEST_PARAMETERS = new TypeReference<>() {
+    };
+
     private final TonicProjectGenerationControllerApi tonicApi;
+    private final ObjectMapper objectMapper;
     private final TonicMapper mapper;
     private final TonicFeaturesService featuresService;
+    private final TonicArchiveCache archiveCache;
+    private final TonicArchiveTemplates archiveTemplates;
+    private final RestClient tonicRestClient;
+    private final UpstreamBulkhead tonicBulkhead;
+    private final AdaptiveConcurrencyLimiter tonicConcurrencyLimiter;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final FacadeMetrics metrics;
+    private final SingleFlight<String, TonicArchive> inFlightDownloads = new SingleFlight<>();
+
+    @Value("${initializer.tonic.streaming.enabled:false}")
+    private boolean streamingEnabled;
+
+    @Value("${initializer.tonic.project-zip-path:/starter.zip}")
+    private String projectZipPath;
 
     @Override
     public Instance generateComponent(Component component) {
         ProjectRequest projectRequest = mapper.toClientRequest(component);
-        return getInstance(projectRequest);
+        return getInstance(projectRequest, "component");
     }
 
-    private Instance getInstance(ProjectRequest projectRequest) {
+    private Instance getInstance(ProjectRequest projectRequest, String archiveType) {
+        String canonicalRequest = mapper.toCanonicalForm(projectRequest);
+        byte[] cachedContent = archiveCache.get(canonicalRequest);
+        metrics.recordCacheAccess("tonic.archives", cachedContent != null);
+        if (cachedContent != null) {
+            log.debug("Serving TONIC archive from cache for {}", projectRequest.getArtifactId());
+            metrics.recordArchiveSize(archiveType, cachedContent.length);
+            return mapper.toBusinessArchive(cachedContent);
+        }
+
+        Optional<byte[]> rendered = archiveTemplates.render(projectRequest,
+                templateRequest -> callTonic(() -> downloadArchive(templateRequest)));
+        if (rendered.isPresent()) {
+            log.debug("Rendered TONIC archive locally for {}", projectRequest.getArtifactId());
+            metrics.recordArchiveSize(archiveType, rendered.get().length);
+            return mapper.toBusinessArchive(rendered.get());
+        }
+
+        if (streamingEnabled) {
+            Instance instance = callTonic(() -> streamArchive(projectRequest, canonicalRequest));
+            // La taille d'une archive en streaming n'est connue que si TONIC l'annonce
+            if (instance.getContent() instanceof StreamingArchiveResource archive && archive.contentLength() >= 0) {
+                metrics.recordArchiveSize(archiveType, archive.contentLength());
+            }
+            return instance;
+        }
+
+        // Chaque appelant obtient son permis avant de rejoindre le téléchargement partagé : un refus de la limite
+        // ne concerne que lui, et n'est pas transmis aux autres appelants de ce téléchargement. L'archive est mise
+        // en cache une fois l'appel terminé, hors du temps mesuré et des permis de la bulkhead
+        TonicArchive archive = tonicConcurrencyLimiter.call(() -> inFlightDownloads.execute(canonicalRequest, () -> {
+            TonicArchive downloaded = callUpstream(() -> downloadArchive(projectRequest));
+            if (downloaded.content() != null) {
+                archiveCache.put(canonicalRequest, downloaded.content());
+            }
+            return downloaded;
+        }, TonicArchive::share));
+        metrics.recordArchiveSize(archiveType, archive.size());
+        return archive.spooled() != null
+                ? mapper.toSpooledArchive(archive.spooled())
+                : mapper.toBusinessArchive(archive.content());
+    }
+
+    /**
+     * Appelle TONIC sous le contrôle de la limite adaptative de concurrence, qui refuse l'appel lorsque TONIC est
+     * saturé, puis de {@link #callUpstream}.
+     */
+    private <T> T callTonic(Supplier<T> generation) {
+        return tonicConcurrencyLimiter.call(() -> callUpstream(generation));
+    }
+
+    /**
+     * Appelle TONIC sous le contrôle du disjoncteur {@code tonic.generate}, qui refuse immédiatement l'appel
+     * tant que TONIC est en échec, puis de la {@link UpstreamBulkhead}, qui borne la pression maximale.
+     */
+    private <T> T callUpstream(Supplier<T> generation) {
+        return circuitBreakers.get("tonic.generate").call(
+                () -> tonicBulkhead.call(() -> metrics.recordTonicCall("generate", generation)));
+    }
+
+    /**
+     * Télécharge l'archive complète, en mémoire ou sur disque au-delà du seuil du {@link TonicArchiveSpool}.
+     * Les requêtes identiques concurrentes partagent ce téléchargement (voir {@link SingleFlight}) ; chaque appelant
+     * reçoit ensuite sa propre {@link Instance}, et sa propre référence sur le fichier d'une archive écrite sur disque.
+     * L'appel passe par le client TONIC généré ; l'archive est lue par le {@link TonicArchiveHttpMessageConverter}.
+     */
+    private TonicArchive downloadArchive(ProjectRequest projectRequest) {
         try {
-            RestClient.ResponseSpec responseSpec = tonicApi.getProjectZipWithResponseSpec(
+            return tonicApi.getProjectZipWithResponseSpec(
                     projectRequest.getDependencies(),
                     projectRequest.getGroupId(),
                     projectRequest.getArtifactId(),
@@ -47,15 +153,76 @@ public class TonicApiProvider implements TonicProvider {
                     projectRequest.getPackageName(),
                     projectRequest.getJavaVersion(),
                     projectRequest.getBaseDir()
-            );
+            ).body(TonicArchive.class);
+        } catch (RestClientResponseException e) {
+            throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
+        }
+    }
 
-            byte[] content = responseSpec.body(byte[].class);
-            return mapper.toBusinessArchive(content);
+    /**
+     * Génère l'archive en mode streaming : la réponse TONIC n'est pas lue ici mais transmise telle quelle,
+     * et c'est la copie vers le client qui consomme le flux puis libère la connexion.
+     * Le permis de la {@link UpstreamBulkhead} est rendu dès réception des en-têtes de la réponse.
+     * Un flux ne pouvant être lu qu'une fois, les requêtes identiques ne sont pas regroupées dans ce mode.
+     * Le client TONIC généré refermant la réponse dès son corps lu, ce mode appelle TONIC directement.
+     */
+    private Instance streamArchive(ProjectRequest projectRequest, String canonicalRequest) {
+        try {
+            return requestArchiveStream(projectRequest, canonicalRequest);
         } catch (RestClientResponseException e) {
             throw new ServiceException(CommonProblemType.ERREUR_INATTENDUE, e);
         }
     }
 
+    private Instance requestArchiveStream(ProjectRequest projectRequest, String canonicalRequest) {
+        return tonicRestClient.get()
+                .uri(toProjectZipUri(projectRequest))
+                .accept(MediaType.APPLICATION_OCTET_STREAM, MediaType.parseMediaType("application/zip"))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        try (response) {
+                            throw toException(response);
+                        }
+                    }
+                    InputStream content = archiveCache.capture(canonicalRequest, releasingOnClose(response));
+                    return mapper.toStreamingArchive(content, response.getHeaders().getContentLength());
+                }, false);
+    }
+
+    /**
+     * Construit l'URI de génération à partir du client TONIC généré : son URL de base, et un paramètre de requête
+     * par propriété renseignée du modèle {@link ProjectRequest}, nommé et formaté comme le fait le client généré.
+     * Une évolution du contrat TONIC est ainsi reprise sans modifier cette méthode.
+     */
+    private URI toProjectZipUri(ProjectRequest projectRequest) {
+        ApiClient apiClient = tonicApi.getApiClient();
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(apiClient.getBasePath()).path(projectZipPath);
+        objectMapper.convertValue(projectRequest, REQUEST_PARAMETERS).forEach((name, value) -> {
+            if (value != null) {
+                uriBuilder.queryParams(apiClient.parameterToMultiValueMap(ApiClient.CollectionFormat.MULTI, name, value));
+            }
+        });
+        return uriBuilder.encode().build().toUri();
+    }
+
+    private static RestClientResponseException toException(ClientHttpResponse response) throws IOException {
+        return new RestClientResponseException("TONIC project generation failed",
+                response.getStatusCode(),
+                response.getStatusText(),
+                response.getHeaders(),
+                response.getBody().readAllBytes(),
+                null);
+    }
+
+    private static InputStream releasingOnClose(ClientHttpResponse response) throws IOException {
+        return new FilterInputStream(response.getBody()) {
+            @Override
+            public void close() {
+                response.close();
+            }
+        };
+    }
+
     @Override
     public List<String> getComponentFeatures() {
         return featuresService.getAvailableFeatures();
@@ -64,11 +231,26 @@ public class TonicApiProvider implements TonicProvider {
     @Override
     public Instance generateContract(Contract contract) {
         ProjectRequest projectRequest = mapper.toClientContractRequest(contract);
-        return getInstance(projectRequest);
+        return getInstance(projectRequest, "contract");
     }
 
     @Override
     public List<String> getAvailableContracts() {
         return featuresService.getAvailableContracts();
     }
+
+    @Override
+    public FeatureCatalog getCatalog() {
+        return featuresService.getCatalog();
+    }
+
+    @Override
+    public void loadMetadata() {
+        featuresService.warmUp();
+    }
+
+    @Override
+    public void refreshMetadataIfDue() {
+        featuresService.refreshIfDue();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+/**
+ * Archive téléchargée depuis TONIC, conservée en mémoire ou, au-delà du seuil du {@link TonicArchiveSpool},
+ * sur disque.
+ *
+ * @param content le contenu de l'archive conservée en mémoire, ou {@code null}
+ * @param spooled l'archive écrite sur disque, ou {@code null}
+ */
+record TonicArchive(byte[] content, SpooledArchive spooled) {
+
+    static TonicArchive inMemory(byte[] content) {
+        return new TonicArchive(content, null);
+    }
+
+    static TonicArchive onDisk(SpooledArchive spooled) {
+        return new TonicArchive(null, spooled);
+    }
+
+    long size() {
+        return spooled != null ? spooled.getSize() : content.length;
+    }
+
+    /**
+     * Réserve une référence sur le fichier pour chacun des appelants partageant ce téléchargement.
+     */
+    void share(int followers) {
+        if (spooled != null && followers > 0) {
+            spooled.retain(followers);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import fr.cnam.initializr.facade.provider.cache.SharedCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache des archives générées par TONIC, adressé par le contenu de la requête de génération.
+ * <p>
+ * La clé est la forme canonique de la {@code ProjectRequest} produite par le {@code TonicMapper},
+ * préfixée par la version TONIC configurée : un changement de version invalide donc naturellement
+ * toutes les archives déjà produites. L'éviction est de type LRU pondérée par la taille des archives,
+ * dans la limite d'un budget mémoire configurable, et chaque entrée expire après un TTL.
+ * <p>
+ * Les archives sont aussi publiées dans le {@link SharedCache} : une archive absente de la mémoire locale est
+ * recherchée parmi celles générées par les autres réplicas avant de solliciter TONIC. Leur taille totale dans le cache
+ * partagé est bornée par {@code shared-max-bytes}. Elles y sont publiées en arrière-plan, hors du chemin des requêtes ;
+ * une archive n'est simplement pas partagée lorsque les publications en attente sont trop nombreuses.
+ */
+@Slf4j
+@org.springframework.stereotype.Component
+@RequiredArgsConstructor
+public class TonicArchiveCache {
+    private static final String SHARED_REGION = "tonic.archives";
+    private static final int MAX_PENDING_SHARES = 8;
+
+    private final SharedCache sharedCache;
+
+    @Value("${initializer.tonic.archive-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${initializer.tonic.archive-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${initializer.tonic.archive-cache.max-entry-bytes:16777216}")
+    private long maxEntryBytes;
+
+    @Value("${initializer.tonic.archive-cache.max-capture-bytes:67108864}")
+    private long maxCaptureBytes;
+
+    @Value("${initializer.tonic.archive-cache.ttl:86400000}")
+    private long ttl;
+
+    @Value("${initializer.tonic.archive-cache.shared:true}")
+    private boolean shared;
+
+    @Value("${initializer.tonic.archive-cache.shared-max-bytes:1073741824}")
+    private long sharedMaxBytes;
+
+    @Value("${initializer.starter-kit.versions.TONIC}")
+    private String tonicVersion;
+
+    private final ThreadPoolExecutor sharingExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_SHARES), new CustomizableThreadFactory("tonic-archive-share-"),
+            new ThreadPoolExecutor.DiscardPolicy());
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedArchive> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong captureBytes = new AtomicLong();
+    private long currentBytes;
+
+    @PostConstruct
+    public void limitSharedRegion() {
+        sharedCache.limit(SHARED_REGION, sharedMaxBytes);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sharingExecutor.shutdown();
+        sharingExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Recherche une archive déjà générée pour la requête canonique donnée.
+     *
+     * @param canonicalRequest la forme canonique de la requête TONIC
+     * @return le contenu de l'archive, ou {@code null} si absent ou expiré
+     */
+    public byte[] get(String canonicalRequest) {
+        if (!enabled) {
+            return null;
+        }
+
+        String key = toKey(canonicalRequest);
+        byte[] content = getLocal(key);
+        if (content != null || !shared) {
+            return content;
+        }
+
+        content = sharedCache.get(SHARED_REGION, key);
+        if (content != null) {
+            log.debug("TONIC archive of {} bytes found in shared cache", content.length);
+            putLocal(key, content);
+        }
+        return content;
+    }
+
+    /**
+     * Enregistre une archive générée. Les archives plus grosses que {@code max-entry-bytes} ne sont pas conservées.
+     *
+     * @param canonicalRequest la forme canonique de la requête TONIC
+     * @param content          le contenu de l'archive
+     */
+    public void put(String canonicalRequest, byte[] content) {
+        if (!enabled || content == null || content.length > maxEntryBytes) {
+            return;
+        }
+
+        String key = toKey(canonicalRequest);
+        putLocal(key, content);
+        if (shared) {
+            sharingExecutor.execute(() -> sharedCache.put(SHARED_REGION, key, content, Duration.ofMillis(ttl)));
+        }
+    }
+
+    /**
+     * Enveloppe un flux d'archive TONIC pour alimenter le cache une fois le flux entièrement lu.
+     * La copie est abandonnée dès que l'archive dépasse {@code max-entry-bytes}, ou que l'ensemble des copies en cours
+     * dépasse {@code max-capture-bytes} : la mémoire consommée reste bornée quel que soit le nombre de flux simultanés.
+     *
+     * @param canonicalRequest la forme canonique de la requête TONIC
+     * @param content          le flux de l'archive
+     * @return un flux équivalent qui alimente le cache en fin de lecture
+     */
+    public InputStream capture(String canonicalRequest, InputStream content) {
+        if (!enabled) {
+            return content;
+        }
+        return new CapturingInputStream(content, canonicalRequest);
+    }
+
+    private byte[] getLocal(String key) {
+        lock.lock();
+        try {
+            CachedArchive archive = archives.get(key);
+            if (archive == null) {
+                return null;
+            }
+            if (archive.isExpired(System.nanoTime())) {
+                archives.remove(key);
+                currentBytes -= archive.content().length;
+                return null;
+            }
+            return archive.content();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putLocal(String key, byte[] content) {
+        CachedArchive archive = new CachedArchive(content, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+        lock.lock();
+        try {
+            CachedArchive previous = archives.put(key, archive);
+            if (previous != null) {
+                currentBytes -= previous.content().length;
+            }
+            currentBytes += content.length;
+            evictEldest();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, CachedArchive>> iterator = archives.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            CachedArchive evicted = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= evicted.content().length;
+            log.debug("Evicted TONIC archive of {} bytes, cache now holds {} bytes", evicted.content().length, currentBytes);
+        }
+    }
+
+    private boolean reserveCapture(long count) {
+        long current;
+        do {
+            current = captureBytes.get();
+            if (current + count > maxCaptureBytes) {
+                return false;
+            }
+        } while (!captureBytes.compareAndSet(current, current + count));
+        return true;
+    }
+
+    private String toKey(String canonicalRequest) {
+        return tonicVersion + '|' + canonicalRequest;
+    }
+
+    private class CapturingInputStream extends FilterInputStream {
+        private final String canonicalRequest;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingInputStream(InputStream in, String canonicalRequest) {
+            super(in);
+            this.canonicalRequest = canonicalRequest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value < 0) {
+                complete();
+            } else {
+                append(new byte[]{(byte) value}, 0, 1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count < 0) {
+                complete();
+            } else {
+                append(buffer, offset, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            abandon();
+            return super.skip(count);
+        }
+
+        @Override
+        public void close() throws IOException {
+            abandon();
+            super.close();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void append(byte[] buffer, int offset, int count) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + count > maxEntryBytes || !reserveCapture(count)) {
+                abandon();
+                return;
+            }
+            copy.write(buffer, offset, count);
+        }
+
+        private void complete() {
+            if (copy != null) {
+                byte[] content = copy.toByteArray();
+                abandon();
+                put(canonicalRequest, content);
+            }
+        }
+
+        private void abandon() {
+            if (copy != null) {
+                captureBytes.addAndGet(-copy.size());
+                copy = null;
+            }
+        }
+    }
+
+    private record CachedArchive(byte[] content, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
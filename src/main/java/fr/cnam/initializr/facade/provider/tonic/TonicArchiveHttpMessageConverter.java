@@ -0,0 +1,42 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+import java.io.IOException;
+
+/**
+ * Lit les archives renvoyées par le client TONIC généré au travers du {@link TonicArchiveSpool} : une archive
+ * volumineuse est recopiée sur disque au fil de sa lecture au lieu d'être chargée en mémoire.
+ */
+public class TonicArchiveHttpMessageConverter extends AbstractHttpMessageConverter<TonicArchive> {
+    private final TonicArchiveSpool archiveSpool;
+
+    public TonicArchiveHttpMessageConverter(TonicArchiveSpool archiveSpool) {
+        super(MediaType.APPLICATION_OCTET_STREAM, MediaType.parseMediaType("application/zip"), MediaType.ALL);
+        this.archiveSpool = archiveSpool;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TonicArchive.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected TonicArchive readInternal(Class<? extends TonicArchive> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return archiveSpool.read(inputMessage.getBody(), inputMessage.getHeaders().getContentLength());
+    }
+
+    @Override
+    protected void writeInternal(TonicArchive archive, HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("TONIC archives are never sent");
+    }
+}
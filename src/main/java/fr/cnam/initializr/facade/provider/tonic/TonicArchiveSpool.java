@@ -0,0 +1,133 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Écrit sur disque les archives TONIC trop volumineuses pour être conservées en mémoire.
+ * <p>
+ * Une archive dont la taille dépasse {@code threshold} est recopiée par blocs dans le répertoire {@code directory}
+ * puis servie depuis ce fichier (voir {@link SpooledArchive}), de sorte que la mémoire consommée ne dépende pas de
+ * la taille des archives. Les fichiers restés dans le répertoire après un arrêt brutal sont supprimés au démarrage,
+ * et ceux dont la référence n'a jamais été rendue le sont périodiquement, passé {@code max-age}.
+ */
+@Slf4j
+@org.springframework.stereotype.Component
+@RequiredArgsConstructor
+public class TonicArchiveSpool {
+    private final FacadeMetrics metrics;
+    private final AtomicLong spooledBytes = new AtomicLong();
+
+    @Value("${initializer.tonic.spool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${initializer.tonic.spool.threshold:16777216}")
+    private int threshold;
+
+    @Value("${initializer.tonic.spool.directory:${initializer.data-dir:${java.io.tmpdir}/fainj}/archives}")
+    private Path directory;
+
+    @Value("${initializer.tonic.spool.max-age:3600000}")
+    private long maxAge;
+
+    @PostConstruct
+    public void init() throws IOException {
+        metrics.registerGauge("fainj.archive.spool.size", "Bytes of generated archives currently spooled to disk",
+                spooledBytes, AtomicLong::get);
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "archive-*.zip")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    /**
+     * Supprime les archives écrites sur disque depuis plus de {@code max-age} : une archive n'est conservée que le
+     * temps d'être recopiée vers le client, et un fichier plus ancien est une référence qui n'a pas été rendue.
+     */
+    @Scheduled(initialDelayString = "${initializer.tonic.spool.sweep-interval:300000}",
+            fixedDelayString = "${initializer.tonic.spool.sweep-interval:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        Instant expiry = Instant.now().minusMillis(maxAge);
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory, "archive-*.zip")) {
+            for (Path archive : archives) {
+                sweep(archive, expiry);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to sweep spooled archives in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void sweep(Path archive, Instant expiry) {
+        try {
+            long size = Files.size(archive);
+            if (Files.getLastModifiedTime(archive).toInstant().isBefore(expiry) && Files.deleteIfExists(archive)) {
+                spooledBytes.addAndGet(-size);
+                log.warn("Deleted spooled archive {} that was never released", archive);
+            }
+        } catch (NoSuchFileException e) {
+            // Supprimée entre-temps par le dernier détenteur de sa référence
+        } catch (IOException e) {
+            log.warn("Unable to delete stale spooled archive {}: {}", archive, e.getMessage());
+        }
+    }
+
+    /**
+     * Lit une archive TONIC, en mémoire si elle ne dépasse pas le seuil, sur disque sinon.
+     *
+     * @param content       le flux de l'archive
+     * @param contentLength la taille annoncée par TONIC, ou {@code -1} si elle est inconnue
+     * @return l'archive lue
+     */
+    TonicArchive read(InputStream content, long contentLength) throws IOException {
+        if (!enabled || (contentLength >= 0 && contentLength <= threshold)) {
+            return TonicArchive.inMemory(content.readAllBytes());
+        }
+
+        // Taille inconnue : seul le début de l'archive, borné par le seuil, est lu en mémoire
+        byte[] head = contentLength < 0 ? content.readNBytes(threshold + 1) : new byte[0];
+        if (contentLength < 0 && head.length <= threshold) {
+            return TonicArchive.inMemory(head);
+        }
+
+        Path file = Files.createTempFile(directory, "archive-", ".zip");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(head));
+            OutputStream out = Channels.newOutputStream(channel);
+            content.transferTo(out);
+            long size = channel.size();
+            spooledBytes.addAndGet(size);
+            log.debug("Spooled TONIC archive of {} bytes to {}", size, file);
+            return TonicArchive.onDisk(new SpooledArchive(file, size, deleted -> spooledBytes.addAndGet(-deleted)));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import fr.cnam.client.tonic.controller.rest.model.ProjectRequest;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.mapper.TonicMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Modèles d'archives TONIC, permettant de générer localement les archives d'un ensemble de features déjà vu.
+ * <p>
+ * Pour un ensemble de features et une version TONIC donnés, les archives ne diffèrent que par le groupId, l'artifactId,
+ * le nom et le package du projet. Le premier appel pour un ensemble de features demande donc à TONIC une archive
+ * générée avec des valeurs sentinelles, découpée en {@link ArchiveTemplate} ; les demandes suivantes sont rendues
+ * localement en remplaçant ces valeurs, noms d'entrées compris.
+ * <p>
+ * Seules les coordonnées simples sont rendues localement, TONIC pouvant transformer les autres : un nom de produit fait
+ * de lettres et de chiffres, et un artifactId fait de lettres, de chiffres et de « _ », comme les codes applicatifs
+ * {@code xxx_J}, {@code xxx_B} ou {@code xxx_M}. Un nom de produit comportant un tiret ou un « _ » reste généré par TONIC. Si les valeurs sentinelles apparaissent dans l'archive sous une forme non reconnue,
+ * l'ensemble de features est marqué comme non modélisable et continue d'être généré par TONIC.
+ * <p>
+ * Le rendu local est désactivé par défaut ({@code initializer.tonic.templates.enabled}).
+ */
+@Slf4j
+@org.springframework.stereotype.Component
+@RequiredArgsConstructor
+public class TonicArchiveTemplates {
+    private static final String STEM = "fainjtpl";
+    private static final String GROUP_ID = STEM + "group";
+    /**
+     * Sentinelle comportant un « _ » : une transformation de ce caractère par TONIC laisse le radical dans l'archive sous
+     * une forme non reconnue, et l'ensemble de features n'est pas modélisé.
+     */
+    private static final String ARTIFACT_ID = STEM + "_artifact";
+    /**
+     * Sentinelle en casse mixte : une transformation de casse du nom par TONIC (mise en minuscules par exemple)
+     * laisse le radical dans l'archive sous une forme non reconnue, et l'ensemble de features n'est pas modélisé.
+     * Une sentinelle en minuscules rendrait une telle transformation invisible pour les noms contenant des majuscules.
+     */
+    private static final String NAME = STEM + "Name";
+    /**
+     * Par ordre de priorité : les formes les plus longues d'abord. Le groupId sentinelle n'ayant qu'un segment,
+     * sa forme suivie d'un « / » est celle d'un chemin, où les « . » du groupId deviennent des répertoires.
+     */
+    private static final List<String> PLACEHOLDERS = List.of(
+            GROUP_ID + "/",
+            GROUP_ID,
+            capitalize(NAME),
+            NAME,
+            ARTIFACT_ID);
+    private static final Pattern SIMPLE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9]*");
+    private static final Pattern SIMPLE_ARTIFACT_ID = Pattern.compile("[a-z][a-z0-9_]*");
+
+    private final TonicMapper mapper;
+    private final FacadeMetrics metrics;
+    private final SingleFlight<String, Optional<ArchiveTemplate>> inFlightTemplates = new SingleFlight<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Optional<ArchiveTemplate>> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Value("${initializer.tonic.templates.enabled:false}")
+    private boolean enabled;
+
+    @Value("${initializer.tonic.templates.max-templates:256}")
+    private int maxTemplates;
+
+    @Value("${initializer.starter-kit.versions.TONIC}")
+    private String tonicVersion;
+
+    /**
+     * Rend localement l'archive demandée si son ensemble de features peut l'être.
+     *
+     * @param request       la requête TONIC
+     * @param fetchTemplate télécharge depuis TONIC l'archive générée pour une requête sentinelle
+     * @return l'archive rendue, ou vide si la requête doit être transmise à TONIC
+     */
+    public Optional<byte[]> render(ProjectRequest request, Function<ProjectRequest, TonicArchive> fetchTemplate) {
+        if (!enabled || !isRenderable(request)) {
+            return Optional.empty();
+        }
+
+        ProjectRequest templateRequest = toTemplateRequest(request);
+        String key = tonicVersion + '|' + mapper.toCanonicalForm(templateRequest);
+        Optional<ArchiveTemplate> template = get(key);
+        metrics.recordCacheAccess("tonic.templates", template != null);
+        if (template == null) {
+            template = inFlightTemplates.execute(key, () -> build(key, templateRequest, fetchTemplate));
+        }
+        if (template.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(template.get().render(List.of(
+                    request.getGroupId().replace('.', '/') + "/",
+                    request.getGroupId(),
+                    capitalize(request.getName()),
+                    request.getName(),
+                    request.getArtifactId())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<ArchiveTemplate> build(String key, ProjectRequest templateRequest,
+                                            Function<ProjectRequest, TonicArchive> fetchTemplate) {
+        TonicArchive archive = fetchTemplate.apply(templateRequest);
+        Optional<ArchiveTemplate> template = Optional.empty();
+        if (archive.spooled() != null) {
+            // Archive trop volumineuse pour être conservée en mémoire comme modèle
+            archive.spooled().release();
+            log.info("TONIC archive for {} is too large to be used as a template", templateRequest.getDependencies());
+        } else {
+            try {
+                template = Optional.ofNullable(ArchiveTemplate.parse(archive.content(), PLACEHOLDERS, STEM));
+                if (template.isEmpty()) {
+                    log.info("TONIC archive for {} cannot be rendered locally, it will keep being generated by TONIC",
+                            templateRequest.getDependencies());
+                }
+            } catch (IOException e) {
+                log.warn("Unable to use TONIC archive for {} as a template: {}",
+                        templateRequest.getDependencies(), e.getMessage());
+            }
+        }
+        put(key, template);
+        return template;
+    }
+
+    private Optional<ArchiveTemplate> get(String key) {
+        lock.lock();
+        try {
+            return templates.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, Optional<ArchiveTemplate> template) {
+        lock.lock();
+        try {
+            templates.put(key, template);
+            while (templates.size() > maxTemplates) {
+                templates.remove(templates.keySet().iterator().next());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isRenderable(ProjectRequest request) {
+        return request.getGroupId() != null
+                && request.getArtifactId() != null
+                && request.getName() != null
+                && request.getApplicationName() == null
+                && request.getPackageName() == null
+                && request.getBaseDir() == null
+                && SIMPLE_NAME.matcher(request.getName()).matches()
+                && SIMPLE_ARTIFACT_ID.matcher(request.getArtifactId()).matches()
+                && request.getGroupId().equals(request.getGroupId().toLowerCase())
+                && SourceVersion.isName(request.getGroupId() + "." + request.getArtifactId())
+                && SourceVersion.isIdentifier(request.getName());
+    }
+
+    private static ProjectRequest toTemplateRequest(ProjectRequest request) {
+        ProjectRequest template = new ProjectRequest();
+        template.setDependencies(request.getDependencies());
+        template.setGroupId(GROUP_ID);
+        template.setArtifactId(ARTIFACT_ID);
+        template.setName(NAME);
+        template.setType(request.getType());
+        template.setDescription(request.getDescription());
+        template.setVersion(request.getVersion());
+        template.setBootVersion(request.getBootVersion());
+        template.setPackaging(request.getPackaging());
+        template.setLanguage(request.getLanguage());
+        template.setJavaVersion(request.getJavaVersion());
+        return template;
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+}
@@ -0,0 +1,98 @@
+package fr.cnam.initializr.facade.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fonctions communes aux fichiers persistés par la facade : remplacement atomique, empreintes et chaînes optionnelles
+ * des formats binaires.
+ */
+public final class IoUtils {
+
+    private IoUtils() {
+    }
+
+    /**
+     * Écrit le contenu d'un fichier.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Écrit un fichier dans un fichier temporaire de son répertoire, puis le déplace sur la cible : un lecteur ne voit
+     * jamais un fichier partiellement écrit. Le fichier temporaire est supprimé si l'écriture ou le déplacement échoue.
+     *
+     * @param target  le fichier à remplacer
+     * @param content écrit le contenu du fichier ; le flux est fermé à son retour
+     */
+    public static void writeAtomically(Path target, ContentWriter content) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                content.write(out);
+            }
+            moveAtomically(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Déplace un fichier en remplaçant la cible, de manière atomique si le système de fichiers le permet.
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return l'empreinte SHA-256 du contenu, en hexadécimal
+     */
+    public static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return l'empreinte SHA-256 de la chaîne encodée en UTF-8, en hexadécimal
+     */
+    public static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Écrit une chaîne éventuellement nulle, précédée d'un indicateur de présence.
+     */
+    public static void writeOptionalUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Relit une chaîne écrite par {@link #writeOptionalUTF(DataOutputStream, String)}.
+     */
+    public static String readOptionalUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
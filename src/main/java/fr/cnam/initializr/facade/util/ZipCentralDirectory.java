@@ -0,0 +1,156 @@
+package fr.cnam.initializr.facade.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Lecture du répertoire central d'une archive ZIP chargée en mémoire, et constantes du format communes aux classes
+ * qui réécrivent des archives sans les décompresser.
+ * <p>
+ * Les archives ZIP64, multi-volumes ou chiffrées sont refusées.
+ */
+public final class ZipCentralDirectory {
+    public static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    public static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    public static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    public static final int LOCAL_HEADER_SIZE = 30;
+    public static final int CENTRAL_HEADER_SIZE = 46;
+    public static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    public static final int MAX_ENTRIES = 0xFFFF;
+    public static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+    public static final int FLAG_ENCRYPTED = 1;
+    public static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    public static final int FLAG_UTF8 = 1 << 11;
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final Charset LEGACY_CHARSET = Charset.isSupported("IBM437")
+            ? Charset.forName("IBM437")
+            : StandardCharsets.ISO_8859_1;
+
+    private ZipCentralDirectory() {
+    }
+
+    /**
+     * Entrée du répertoire central, complétée par les informations de son en-tête local.
+     *
+     * @param name        le nom de l'entrée, décodé selon son indicateur UTF-8
+     * @param extra       le champ extra du répertoire central
+     * @param localExtra  le champ extra de l'en-tête local
+     * @param dataOffset  la position des données compressées dans l'archive
+     */
+    public record Entry(int versionMadeBy, int versionNeeded, int flags, int method,
+                        int lastModifiedTime, int lastModifiedDate, int crc, long compressedSize, long size,
+                        String name, byte[] extra, byte[] localExtra,
+                        int internalAttributes, int externalAttributes, int dataOffset) {
+    }
+
+    /**
+     * Lit toutes les entrées d'une archive.
+     *
+     * @param archive le contenu complet de l'archive
+     * @return les entrées, dans l'ordre du répertoire central
+     * @throws ZipException si l'archive est invalide ou utilise un format non pris en charge
+     */
+    public static List<Entry> read(byte[] archive) throws ZipException {
+        ByteBuffer buffer = ByteBuffer.wrap(archive).order(ByteOrder.LITTLE_ENDIAN);
+        int endOfCentralDirectory = findEndOfCentralDirectory(buffer);
+        int entryCount = Short.toUnsignedInt(buffer.getShort(endOfCentralDirectory + 10));
+        long centralDirectoryOffset = Integer.toUnsignedLong(buffer.getInt(endOfCentralDirectory + 16));
+        if (entryCount == MAX_ENTRIES || centralDirectoryOffset == MAX_OFFSET) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+
+        List<Entry> entries = new ArrayList<>(entryCount);
+        int offset = (int) centralDirectoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (offset < 0 || offset + CENTRAL_HEADER_SIZE > buffer.limit()
+                    || buffer.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry at offset " + offset);
+            }
+            entries.add(readEntry(buffer, offset));
+            offset += CENTRAL_HEADER_SIZE
+                    + Short.toUnsignedInt(buffer.getShort(offset + 28))
+                    + Short.toUnsignedInt(buffer.getShort(offset + 30))
+                    + Short.toUnsignedInt(buffer.getShort(offset + 32));
+        }
+        return entries;
+    }
+
+    private static Entry readEntry(ByteBuffer source, int entry) throws ZipException {
+        int flags = Short.toUnsignedInt(source.getShort(entry + 8));
+        if ((flags & FLAG_ENCRYPTED) != 0) {
+            throw new ZipException("Encrypted archives are not supported");
+        }
+        long compressedSize = Integer.toUnsignedLong(source.getInt(entry + 20));
+        long size = Integer.toUnsignedLong(source.getInt(entry + 24));
+        int nameLength = Short.toUnsignedInt(source.getShort(entry + 28));
+        int extraLength = Short.toUnsignedInt(source.getShort(entry + 30));
+        long localHeaderOffset = Integer.toUnsignedLong(source.getInt(entry + 42));
+        if (compressedSize == MAX_OFFSET || size == MAX_OFFSET || localHeaderOffset == MAX_OFFSET) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+
+        Charset charset = (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : LEGACY_CHARSET;
+        String name = new String(slice(source, entry + CENTRAL_HEADER_SIZE, nameLength), charset);
+
+        int local = (int) localHeaderOffset;
+        if (local + LOCAL_HEADER_SIZE > source.limit() || source.getInt(local) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header at offset " + local);
+        }
+        int localNameLength = Short.toUnsignedInt(source.getShort(local + 26));
+        int localExtraLength = Short.toUnsignedInt(source.getShort(local + 28));
+        byte[] localExtra = slice(source, local + LOCAL_HEADER_SIZE + localNameLength, localExtraLength);
+        int dataOffset = local + LOCAL_HEADER_SIZE + localNameLength + localExtraLength;
+        if (dataOffset + compressedSize > source.limit()) {
+            throw new ZipException("Truncated entry data at offset " + dataOffset);
+        }
+
+        return new Entry(
+                Short.toUnsignedInt(source.getShort(entry + 4)),
+                Short.toUnsignedInt(source.getShort(entry + 6)),
+                flags,
+                Short.toUnsignedInt(source.getShort(entry + 10)),
+                Short.toUnsignedInt(source.getShort(entry + 12)),
+                Short.toUnsignedInt(source.getShort(entry + 14)),
+                source.getInt(entry + 16),
+                compressedSize,
+                size,
+                name,
+                slice(source, entry + CENTRAL_HEADER_SIZE + nameLength, extraLength),
+                localExtra,
+                Short.toUnsignedInt(source.getShort(entry + 36)),
+                source.getInt(entry + 38),
+                dataOffset);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+        int last = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT_SIZE);
+        for (int offset = last; offset >= first; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                if (buffer.getShort(offset + 4) != 0 || buffer.getShort(offset + 6) != 0) {
+                    throw new ZipException("Multi-volume archives are not supported");
+                }
+                return offset;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    private static byte[] slice(ByteBuffer source, int offset, int length) throws ZipException {
+        if (offset < 0 || offset + length > source.limit()) {
+            throw new ZipException("Truncated header at offset " + offset);
+        }
+        byte[] bytes = new byte[length];
+        source.get(offset, bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,72 @@
+package fr.cnam.initializr.facade.business.service;
+
+import fr.cnam.initializr.facade.business.exception.RateLimitExceededException;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.toni.starter.core.exceptions.ClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationRateLimiterTest {
+    private static final long PERIOD_MILLIS = 1000;
+    private static final int RATE = 5;
+    private static final int BURST = 3;
+
+    private final GenerationRateLimiter limiter = new GenerationRateLimiter(new FacadeMetrics(new SimpleMeterRegistry()));
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "rate", RATE);
+        ReflectionTestUtils.setField(limiter, "period", PERIOD_MILLIS);
+        ReflectionTestUtils.setField(limiter, "burst", BURST);
+        ReflectionTestUtils.setField(limiter, "maxKeys", 100);
+        limiter.init();
+    }
+
+    @Test
+    void allowsTheBurstThenRejects() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire("product", "ap", 1);
+        }
+
+        assertThatThrownBy(() -> limiter.acquire("product", "ap", 1))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatCode(() -> limiter.acquire("other", "ap", BURST)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        limiter.acquire("product", "ap", BURST);
+        assertThatThrownBy(() -> limiter.acquire("product", "ap", 1))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        Thread.sleep(PERIOD_MILLIS / RATE + 50);
+
+        limiter.acquire("product", "ap", 1);
+        assertThatThrownBy(() -> limiter.acquire("product", "ap", 1))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void rejectsMorePermitsThanTheBurst() {
+        assertThatThrownBy(() -> limiter.acquire("product", "ap", BURST + 1))
+                .isInstanceOf(ClientException.class);
+
+        assertThatCode(() -> limiter.acquire("product", "ap", BURST)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void releasedPermitsCanBeAcquiredAgain() {
+        limiter.acquire("product", "ap", BURST);
+        limiter.release("product", "ap", 2);
+
+        limiter.acquire("product", "ap", 2);
+        assertThatThrownBy(() -> limiter.acquire("product", "ap", 1))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.cnam.initializr.facade.controller.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZipBundleWriterTest {
+
+    @Test
+    void mergesArchivesUnderTheirDirectory() throws IOException {
+        byte[] first = zip(Map.of("pom.xml", "<project/>", "src/Main.java", "class Main {}"), ZipEntry.DEFLATED);
+        byte[] second = zip(Map.of("README.md", "contrat"), ZipEntry.STORED);
+
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        ZipBundleWriter writer = new ZipBundleWriter(merged);
+        writer.addArchive("produit-app", first);
+        writer.addArchive("produit-app-api-contract", second);
+        writer.finish();
+
+        assertThat(unzip(merged.toByteArray())).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "produit-app/", "",
+                "produit-app/pom.xml", "<project/>",
+                "produit-app/src/Main.java", "class Main {}",
+                "produit-app-api-contract/", "",
+                "produit-app-api-contract/README.md", "contrat"));
+    }
+
+    @Test
+    void keepsEntriesWrittenWithDataDescriptors() throws IOException {
+        // ZipOutputStream écrit les entrées compressées avec un descripteur de données, que la fusion supprime
+        byte[] archive = zip(Map.of("a.txt", "a".repeat(10_000)), ZipEntry.DEFLATED);
+
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        ZipBundleWriter writer = new ZipBundleWriter(merged);
+        writer.addArchive("lot", archive);
+        writer.finish();
+
+        assertThat(unzip(merged.toByteArray())).containsEntry("lot/a.txt", "a".repeat(10_000));
+    }
+
+    @Test
+    void rejectsDirectoriesEscapingTheArchive() {
+        ZipBundleWriter writer = new ZipBundleWriter(new ByteArrayOutputStream());
+
+        assertThatThrownBy(() -> writer.addArchive("../x", new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> writer.addArchive("a/b", new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> writer.addArchive("a\\b", new byte[0])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsSourceEntriesEscapingTheArchive() throws IOException {
+        byte[] archive = zip(Map.of("../../etc/passwd", "root"), ZipEntry.DEFLATED);
+        ZipBundleWriter writer = new ZipBundleWriter(new ByteArrayOutputStream());
+
+        assertThatThrownBy(() -> writer.addArchive("lot", archive)).isInstanceOf(ZipException.class);
+    }
+
+    @Test
+    void rejectsInvalidArchives() {
+        ZipBundleWriter writer = new ZipBundleWriter(new ByteArrayOutputStream());
+
+        assertThatThrownBy(() -> writer.addArchive("lot", "not a zip file at all".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(ZipException.class);
+    }
+
+    static byte[] zip(Map<String, String> entries, int method) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                byte[] content = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    zipEntry.setSize(content.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
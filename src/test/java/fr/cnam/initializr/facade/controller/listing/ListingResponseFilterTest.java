@@ -0,0 +1,69 @@
+package fr.cnam.initializr.facade.controller.listing;
+
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.service.TonicMetadataRefreshedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingResponseFilterTest {
+    private static final String LISTING = "[\"TONIC\"]";
+
+    private final ListingResponseFilter filter = new ListingResponseFilter(new FacadeMetrics(new SimpleMeterRegistry()), 60);
+    private final AtomicInteger controllerCalls = new AtomicInteger();
+
+    @Test
+    void servesTheCachedListingWithoutCallingTheController() throws Exception {
+        MockHttpServletResponse first = get(null);
+        MockHttpServletResponse second = get(null);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getContentAsString()).isEqualTo(LISTING);
+        assertThat(second.getContentAsString()).isEqualTo(LISTING);
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(first.getHeader(HttpHeaders.ETAG));
+        assertThat(controllerCalls).hasValue(1);
+    }
+
+    @Test
+    void answersNotModifiedWhenTheListingIsRecomputed() throws Exception {
+        String etag = get(null).getHeader(HttpHeaders.ETAG);
+        filter.onMetadataRefreshed(new TonicMetadataRefreshedEvent(null));
+
+        MockHttpServletResponse response = get("W/" + etag);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(controllerCalls).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/components/starter-kits");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                controllerCalls.incrementAndGet();
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getOutputStream().write(LISTING.getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package fr.cnam.initializr.facade.controller.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.cnam.initializr.facade.business.exception.RateLimitExceededException;
+import fr.cnam.initializr.facade.provider.config.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchRuntimeException;
+
+class GenerationRejectedExceptionResolverTest {
+    private final GenerationRejectedExceptionResolver resolver = new GenerationRejectedExceptionResolver(new ObjectMapper());
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void openCircuitBreakerAnswersServiceUnavailable() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("tonic.generate", 1, 1, 0.5, Duration.ofSeconds(30), 1);
+        catchRuntimeException(() -> breaker.call(() -> {
+            throw new IllegalStateException("upstream failure");
+        }));
+        RuntimeException rejection = catchRuntimeException(() -> breaker.call(() -> "ok"));
+
+        assertThat(resolve(rejection)).isTrue();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        assertThat(response.getContentAsString()).contains("tonic.generate");
+    }
+
+    @Test
+    void rateLimitedProductAnswersTooManyRequests() {
+        RateLimitExceededException rejection = new RateLimitExceededException("Rate limit exceeded for product", 10,
+                Duration.ofSeconds(20), Duration.ofMillis(1500), Duration.ofSeconds(20));
+
+        assertThat(resolve(rejection)).isTrue();
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("10");
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        assertThat(response.getHeader("RateLimit-Policy")).isEqualTo("10;w=20");
+    }
+
+    @Test
+    void leavesOtherErrorsToTheToniErrorHandling() {
+        assertThat(resolve(new IllegalStateException("upstream failure"))).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private boolean resolve(Exception exception) {
+        return resolver.resolveException(new MockHttpServletRequest(), response, null, exception) != null;
+    }
+}
@@ -0,0 +1,101 @@
+package fr.cnam.initializr.facade.provider.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirectorySharedCacheTest {
+    private static final Duration POLL_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    private DirectorySharedCache first;
+    private DirectorySharedCache second;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        if (first != null) {
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Test
+    void lockIsExclusiveUntilReleasedByItsOwner() throws IOException {
+        first = new DirectorySharedCache(directory, POLL_INTERVAL);
+        second = new DirectorySharedCache(directory, POLL_INTERVAL);
+
+        assertThat(first.tryLock("metadata", Duration.ofMinutes(1))).isTrue();
+        assertThat(second.tryLock("metadata", Duration.ofMinutes(1))).isFalse();
+
+        second.unlock("metadata");
+        assertThat(second.tryLock("metadata", Duration.ofMinutes(1))).isFalse();
+
+        first.unlock("metadata");
+        assertThat(second.tryLock("metadata", Duration.ofMinutes(1))).isTrue();
+        assertThat(lockDirectoryFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredLeaseIsBroken() throws IOException, InterruptedException {
+        first = new DirectorySharedCache(directory, POLL_INTERVAL);
+        second = new DirectorySharedCache(directory, POLL_INTERVAL);
+
+        assertThat(first.tryLock("metadata", Duration.ofMillis(10))).isTrue();
+        Thread.sleep(50);
+
+        assertThat(second.tryLock("metadata", Duration.ofMinutes(1))).isTrue();
+        first.unlock("metadata");
+        assertThat(first.tryLock("metadata", Duration.ofMinutes(1))).isFalse();
+        assertThat(lockDirectoryFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void limitedRegionEvictsOldestEntriesInBackground() throws IOException, InterruptedException {
+        first = new DirectorySharedCache(directory, Duration.ofMillis(20));
+        first.limit("archives", 2500);
+
+        first.put("archives", "a", new byte[1000], Duration.ofMinutes(1));
+        ageEntries();
+        first.put("archives", "b", new byte[1000], Duration.ofMinutes(1));
+        ageEntries();
+        first.put("archives", "c", new byte[1000], Duration.ofMinutes(1));
+
+        for (int i = 0; i < 100 && first.get("archives", "a") != null; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(first.get("archives", "a")).isNull();
+        assertThat(first.get("archives", "b")).hasSize(1000);
+        assertThat(first.get("archives", "c")).hasSize(1000);
+    }
+
+    /**
+     * Vieillit d'une minute les entrées déjà écrites, pour ordonner les entrées sans attendre.
+     */
+    private void ageEntries() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("archives"))) {
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(
+                        Files.getLastModifiedTime(file).toMillis() - Duration.ofMinutes(1).toMillis()));
+            }
+        }
+    }
+
+    private long lockDirectoryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("locks"))) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package fr.cnam.initializr.facade.provider.config;
+
+import fr.cnam.initializr.facade.business.exception.GenerationRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 0.5, OPEN_DURATION, 2);
+
+    @Test
+    void opensOnceTheFailureRateIsReached() {
+        succeed();
+        succeed();
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> breaker.call(calls::incrementAndGet))
+                .isInstanceOf(GenerationRejectedException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void closesAfterSuccessfulTrialCalls() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        succeed();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenATrialCallFails() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void limitsTrialCallsWhileHalfOpen() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        // Deux appels de test en cours : le troisième est refusé
+        breaker.call(() -> {
+            breaker.call(() -> {
+                assertThatThrownBy(() -> breaker.call(() -> "third")).isInstanceOf(GenerationRejectedException.class);
+                return "second";
+            });
+            return "first";
+        });
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void ignoresRejectionsFromTheFacade() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            reject();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        reject();
+        reject();
+        reject();
+
+        // Les refus rendent leur permis : les deux appels de test restent disponibles
+        succeed();
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeed() {
+        breaker.call(() -> "ok");
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new IllegalStateException("upstream failure");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private void reject() {
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new GenerationRejectedException("bulkhead full", Duration.ofSeconds(1));
+        })).isInstanceOf(GenerationRejectedException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package fr.cnam.initializr.facade.provider.metric;
+
+import fr.cnam.initializr.facade.business.model.Metric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricSpoolTest {
+    private static final long SEGMENT_SIZE = 4096;
+    private static final long MAX_SIZE = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysMetricsInOrderAfterReopening() throws IOException {
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(spool.append(metric("module-" + i))).isTrue();
+            }
+        }
+
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            List<Metric> replayed = new ArrayList<>();
+            assertThat(spool.replay(10, replayed::add)).isEqualTo(3);
+            assertThat(replayed).extracting(Metric::getCodeModule).containsExactly("module-0", "module-1", "module-2");
+            assertThat(replayed.get(0).getDateInstanciation()).isEqualTo(LocalDate.of(2024, 1, 15));
+            assertThat(replayed.get(0).getUsecases()).isNull();
+            assertThat(spool.getPendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void dropsATruncatedTailOnRecovery() throws IOException {
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            spool.append(metric("complete-1"));
+            spool.append(metric("complete-2"));
+            spool.append(metric("truncated"));
+        }
+        // Arrêt brutal au milieu de l'écriture du dernier enregistrement
+        Path segment = singleSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            assertThat(spool.getPendingCount()).isEqualTo(2);
+            assertThat(spool.getSpooledBytes()).isEqualTo(Files.size(segment));
+
+            // Les ajouts suivants reprennent à la fin du dernier enregistrement complet
+            spool.append(metric("after-restart"));
+
+            List<Metric> replayed = new ArrayList<>();
+            assertThat(spool.replay(10, replayed::add)).isEqualTo(3);
+            assertThat(replayed).extracting(Metric::getCodeModule)
+                    .containsExactly("complete-1", "complete-2", "after-restart");
+        }
+    }
+
+    @Test
+    void skipsACorruptedTailDuringReplay() throws IOException {
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            spool.append(metric("complete"));
+            spool.append(metric("corrupted"));
+        }
+        Path segment = singleSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), channel.size() - 1);
+        }
+
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            List<Metric> replayed = new ArrayList<>();
+            spool.replay(10, replayed::add);
+            assertThat(replayed).extracting(Metric::getCodeModule).containsExactly("complete");
+        }
+    }
+
+    @Test
+    void resumesFromTheCheckpoint() throws IOException {
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            spool.append(metric("sent"));
+            spool.append(metric("pending"));
+            assertThat(spool.replay(1, metric -> true)).isEqualTo(1);
+        }
+
+        try (MetricSpool spool = MetricSpool.open(directory, SEGMENT_SIZE, MAX_SIZE)) {
+            List<Metric> replayed = new ArrayList<>();
+            spool.replay(10, replayed::add);
+            assertThat(replayed).extracting(Metric::getCodeModule).containsExactly("pending");
+        }
+    }
+
+    private Path singleSegment() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "metrics-*.seg")) {
+            files.forEach(segments::add);
+        }
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private static Metric metric(String codeModule) {
+        Metric metric = new Metric();
+        metric.setDds("DDS");
+        metric.setCodeModule(codeModule);
+        metric.setDateInstanciation(LocalDate.of(2024, 1, 15));
+        metric.setTypeModule("service");
+        metric.setTypeSK("TONIC");
+        metric.setVersionSK("1.0.0");
+        return metric;
+    }
+}
@@ -0,0 +1,101 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveTemplateTest {
+    private static final String STEM = "fainjtpl";
+    private static final List<String> PLACEHOLDERS = List.of(
+            "fainjtplgroup/", "fainjtplgroup", "FainjtplName", "fainjtplName", "fainjtplartifact");
+    private static final List<String> VALUES = List.of(
+            "fr/cnam/myproduct/", "fr.cnam.myproduct", "MyProduct", "MyProduct", "myapp");
+
+    @Test
+    void rendersNamesAndContents() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("pom.xml", "<groupId>fainjtplgroup</groupId><artifactId>fainjtplartifact</artifactId>"
+                + "<name>fainjtplName</name>");
+        entries.put("src/main/java/fainjtplgroup/fainjtplartifact/FainjtplNameApplication.java",
+                "package fainjtplgroup.fainjtplartifact;\nclass FainjtplNameApplication {}");
+        entries.put("README.md", "Aucun emplacement ici");
+
+        ArchiveTemplate template = ArchiveTemplate.parse(zip(entries, ZipEntry.DEFLATED), PLACEHOLDERS, STEM);
+
+        assertThat(template).isNotNull();
+        assertThat(unzip(template.render(VALUES))).containsExactly(
+                Map.entry("pom.xml", "<groupId>fr.cnam.myproduct</groupId><artifactId>myapp</artifactId>"
+                        + "<name>MyProduct</name>"),
+                Map.entry("src/main/java/fr/cnam/myproduct/myapp/MyProductApplication.java",
+                        "package fr.cnam.myproduct.myapp;\nclass MyProductApplication {}"),
+                Map.entry("README.md", "Aucun emplacement ici"));
+    }
+
+    @Test
+    void rendersStoredEntries() throws IOException {
+        ArchiveTemplate template = ArchiveTemplate.parse(
+                zip(Map.of("mvnw", "#!/bin/sh\necho fainjtplartifact"), ZipEntry.STORED), PLACEHOLDERS, STEM);
+
+        assertThat(template).isNotNull();
+        assertThat(unzip(template.render(VALUES))).containsExactly(Map.entry("mvnw", "#!/bin/sh\necho myapp"));
+    }
+
+    @Test
+    void refusesArchivesWithTransformedPlaceholders() throws IOException {
+        // Nom mis en minuscules par TONIC : le rendu ne saurait reproduire cette transformation
+        byte[] archive = zip(Map.of("application.yml", "spring.application.name: fainjtplname"), ZipEntry.DEFLATED);
+
+        assertThat(ArchiveTemplate.parse(archive, PLACEHOLDERS, STEM)).isNull();
+    }
+
+    @Test
+    void rejectsInvalidArchives() {
+        assertThatThrownBy(() -> ArchiveTemplate.parse("not a zip".getBytes(StandardCharsets.UTF_8), PLACEHOLDERS, STEM))
+                .isInstanceOf(ZipException.class);
+    }
+
+    private static byte[] zip(Map<String, String> entries, int method) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                byte[] content = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    zipEntry.setSize(content.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
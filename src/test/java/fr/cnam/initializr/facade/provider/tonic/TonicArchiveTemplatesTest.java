@@ -0,0 +1,122 @@
+package fr.cnam.initializr.facade.provider.tonic;
+
+import fr.cnam.client.tonic.controller.rest.model.ProjectRequest;
+import fr.cnam.initializr.facade.business.model.Component;
+import fr.cnam.initializr.facade.business.model.StarterKit;
+import fr.cnam.initializr.facade.config.FacadeMetrics;
+import fr.cnam.initializr.facade.provider.mapper.TonicMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TonicArchiveTemplatesTest {
+    private final TonicMapper mapper = new TonicMapper();
+    private final TonicArchiveTemplates templates =
+            new TonicArchiveTemplates(mapper, new FacadeMetrics(new SimpleMeterRegistry()));
+    private final AtomicInteger tonicCalls = new AtomicInteger();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(templates, "enabled", true);
+        ReflectionTestUtils.setField(templates, "maxTemplates", 16);
+        ReflectionTestUtils.setField(templates, "tonicVersion", "1.3.0");
+    }
+
+    @Test
+    void rendersComponentsWithUsualCodeApplicatif() throws IOException {
+        Optional<byte[]> rendered = render("monproduit", "abc_J");
+
+        assertThat(rendered).isPresent();
+        assertThat(unzip(rendered.get())).isEqualTo(generate(request("monproduit", "abc_J")));
+        assertThat(tonicCalls).hasValue(1);
+    }
+
+    @Test
+    void reusesTheTemplateOfAFeatureSet() throws IOException {
+        render("monproduit", "abc_J");
+        Optional<byte[]> rendered = render("autreproduit", "xyz_B");
+
+        assertThat(rendered).isPresent();
+        assertThat(unzip(rendered.get())).isEqualTo(generate(request("autreproduit", "xyz_B")));
+        assertThat(tonicCalls).hasValue(1);
+    }
+
+    @Test
+    void leavesComplexNamesToTonic() {
+        assertThat(render("mon-produit", "abc_J")).isEmpty();
+        assertThat(render("monproduit", "1abc_J")).isEmpty();
+        assertThat(tonicCalls).hasValue(0);
+    }
+
+    /**
+     * Le premier rendu d'un ensemble de features construit son modèle à partir d'une archive sentinelle générée par TONIC.
+     */
+    private Optional<byte[]> render(String productName, String codeApplicatif) {
+        return templates.render(request(productName, codeApplicatif), templateRequest -> {
+            tonicCalls.incrementAndGet();
+            return TonicArchive.inMemory(zip(generate(templateRequest)));
+        });
+    }
+
+    private ProjectRequest request(String productName, String codeApplicatif) {
+        return mapper.toClientRequest(new Component(StarterKit.TONIC, productName, codeApplicatif,
+                List.of("toni-starter-web", "toni-starter-jdbc")));
+    }
+
+    /**
+     * Reproduit les coordonnées d'une archive générée par TONIC.
+     */
+    private static Map<String, String> generate(ProjectRequest request) {
+        String className = Character.toUpperCase(request.getName().charAt(0)) + request.getName().substring(1)
+                + "Application";
+        String packageName = request.getGroupId() + "." + request.getArtifactId();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("pom.xml", "<groupId>" + request.getGroupId() + "</groupId><artifactId>" + request.getArtifactId()
+                + "</artifactId><version>" + request.getVersion() + "</version><name>" + request.getName() + "</name>");
+        entries.put("src/main/java/" + packageName.replace('.', '/') + "/" + className + ".java",
+                "package " + packageName + ";\n\nclass " + className + " {}\n");
+        entries.put("src/main/resources/application.yml", "spring.application.name: " + request.getName() + "\n");
+        return entries;
+    }
+
+    private static byte[] zip(Map<String, String> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}